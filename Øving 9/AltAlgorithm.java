@@ -0,0 +1,317 @@
+class AltAlgorithm extends DijkstrasAlgorithm {
+    // The most landmarks used by a search, the ones giving the best estimate between the start
+    // and the end node are picked. It is half of the 4 landmarks preprocessed by default, and
+    // all landmarks are used if it is 0 or at least the amount of landmarks.
+    protected int activeLandmarks = 2;
+
+    /**
+     * Returns the landmark estimate of a search context, and makes a new one if the context
+     * does not have one for the current landmarks.
+     *
+     * @param context the search context.
+     * @return the landmark estimate.
+     */
+    protected LandmarkEstimate landmarkEstimate(SearchContext context) {
+        return landmarkEstimate(context, landmarks, CostMetric.TRAVEL_TIME);
+    }
+
+    /**
+     * Returns the landmark estimate of a search context for the landmarks of a cost metric,
+     * and makes a new one if the context does not have one for the landmarks.
+     *
+     * @param context the search context.
+     * @param metricLandmarks the landmarks of the metric, from the version of the graph the search uses.
+     * @param metric the cost metric.
+     * @return the landmark estimate.
+     * @throws IllegalStateException if there are no landmarks for the metric.
+     */
+    protected LandmarkEstimate landmarkEstimate(SearchContext context, Landmarks metricLandmarks, CostMetric metric) {
+        if (metricLandmarks == null) {
+            throw new IllegalStateException("No landmarks have been read or preprocessed for " + metric);
+        }
+        if (context.landmarkEstimate == null || context.landmarkEstimate.landmarks != metricLandmarks) {
+            context.landmarkEstimate = new LandmarkEstimate(metricLandmarks);
+        }
+        return context.landmarkEstimate;
+    }
+
+    /**
+     * Returns estimate from behind start.
+     *
+     * @param n the current node number.
+     * @param L the index of the landmark.
+     * @param goal the end node number.
+     * @return estimate.
+     */
+    public int behindStart(int n, int L, int goal) {
+        // If L is after the goal, then the estimate is negative.
+        return landmarks.fromLandmark(L, goal) - landmarks.fromLandmark(L, n);
+    }
+
+    /**
+     * Returns estimate from behind start.
+     *
+     * @param n the current node number.
+     * @param L the index of the landmark.
+     * @param goal the end node number.
+     * @return estimate.
+     */
+    public int afterGoal(int n, int L, int goal) {
+        // If L is behind the start, then the estimate is negative.
+        return landmarks.toLandmark(L, n) - landmarks.toLandmark(L, goal);
+    }
+
+    /**
+     * Returns the highest estimate from all landmarks.
+     *
+     * @param currentNode the current node number.
+     * @param endNode the end node number.
+     * @return highest estimate.
+     */
+    public int estimate(int currentNode, int endNode) {
+        int highestEstimate = 0;
+        for (int landMark = 0; landMark < landmarks.landmarks.length; landMark++) {
+            // Unreachable nodes have the travel time Integer.MAX_VALUE, and would overflow.
+            int afterGoal = landmarks.toLandmark(landMark, currentNode) == Integer.MAX_VALUE
+                    || landmarks.toLandmark(landMark, endNode) == Integer.MAX_VALUE
+                    ? 0 : afterGoal(currentNode, landMark, endNode);
+            int behindStart = landmarks.fromLandmark(landMark, currentNode) == Integer.MAX_VALUE
+                    || landmarks.fromLandmark(landMark, endNode) == Integer.MAX_VALUE
+                    ? 0 : behindStart(currentNode, landMark, endNode);
+
+            if (afterGoal > highestEstimate) {
+                highestEstimate = afterGoal;
+            }
+            if (behindStart > highestEstimate) {
+                highestEstimate = behindStart;
+            }
+        }
+        return highestEstimate;
+    }
+
+    /**
+     * Represents the ALT for finding the shortest drive time between two points,
+     * records the time it took in SearchMetrics, and logs it at level FINE.
+     *
+     * @param startNodeNumber the start node's number.
+     * @param endNodeNumber the end node's number.
+     * @return the shortest drive time between two points.
+     */
+    public int ALT(int startNodeNumber, int endNodeNumber) {
+        SearchContext context = searchContext(graph.amountNodes);
+        long startTime = System.nanoTime();
+        int travelTime = ALT(startNodeNumber, endNodeNumber, context);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("ALT", context, latency);
+        logger.fine(() -> "Alt Algorithm from Node: " + startNodeNumber + " to Node: " + endNodeNumber + " in "
+                + latency / 1e6 + " ms, processed nodes: " + context.nodesPicked);
+        return travelTime;
+    }
+
+    /**
+     * Represents the ALT for finding the shortest drive time between two points.
+     *
+     * @param startNodeNumber the start node's number.
+     * @param endNodeNumber the end node's number.
+     * @param context the context the state of the search is stored in.
+     * @return the shortest drive time between two points.
+     */
+    public int ALT(int startNodeNumber, int endNodeNumber, SearchContext context) {
+        return ALT(startNodeNumber, endNodeNumber, CostMetric.TRAVEL_TIME, context);
+    }
+
+    /**
+     * Represents the ALT for finding the path with the lowest cost in a metric between two
+     * points. The landmarks must be preprocessed with the same metric.
+     *
+     * @param startNodeNumber the start node's number.
+     * @param endNodeNumber the end node's number.
+     * @param metric the cost metric to minimize.
+     * @param context the context the state of the search is stored in.
+     * @return the lowest cost between two points.
+     */
+    public int ALT(int startNodeNumber, int endNodeNumber, CostMetric metric, SearchContext context) {
+        return ALT(startNodeNumber, endNodeNumber, currentVersion(metric), metric, context);
+    }
+
+    /**
+     * Represents the ALT for finding the path with the lowest cost in a metric between two
+     * points in one version of the graph and the landmarks, see currentVersion.
+     *
+     * @param startNodeNumber the start node's number.
+     * @param endNodeNumber the end node's number.
+     * @param version the version of the graph and the landmarks to search with.
+     * @param metric the cost metric to minimize.
+     * @param context the context the state of the search is stored in.
+     * @return the lowest cost between two points.
+     */
+    public int ALT(int startNodeNumber, int endNodeNumber, GraphVersion version, CostMetric metric,
+                   SearchContext context) {
+        RoadGraph graph = version.graph;
+        int[] weights = graph.weights(metric);
+        LandmarkEstimate landmarkEstimate = landmarkEstimate(context, version.landmarks, metric);
+        landmarkEstimate.prepare(startNodeNumber, endNodeNumber, activeLandmarks);
+        context.reset();
+        context.update(startNodeNumber, 0, -1);
+        int startEstimate = landmarkEstimate.estimate(startNodeNumber);
+        context.setEstimate(startNodeNumber, startEstimate);
+
+        // PriorityQueue that priorities lowest travelTime + estimate
+        NodePriorityQueue priorityQueue = context.priorityQueue;
+        priorityQueue.addOrDecrease(startNodeNumber, startEstimate);
+
+        while (!priorityQueue.isEmpty()) {
+            int currentNode = priorityQueue.poll();
+            context.nodesPicked++;
+
+            int currentTravelTime = context.travelTime(currentNode);
+            if (SearchMetrics.ENABLED) {
+                context.edgesRelaxed += graph.edgeStart[currentNode + 1] - graph.edgeStart[currentNode];
+            }
+            for (int edge = graph.edgeStart[currentNode]; edge < graph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = graph.edgeTarget[edge];
+                int newTravelTime = currentTravelTime + weights[edge];
+                if (newTravelTime < context.travelTime(toNode)) {
+                    // The estimate only depends on the node, so it is computed the first time
+                    // the node is reached and reused if a quicker path is found later.
+                    int toNodeEstimate = context.estimate(toNode);
+                    if (toNodeEstimate == Integer.MIN_VALUE) {
+                        toNodeEstimate = landmarkEstimate.estimate(toNode);
+                    }
+                    if (SearchMetrics.ENABLED && context.travelTime(toNode) != Integer.MAX_VALUE) {
+                        context.decreaseKeys++;
+                    }
+                    context.update(toNode, newTravelTime, currentNode, edge);
+                    context.setEstimate(toNode, toNodeEstimate);
+                    priorityQueue.addOrDecrease(toNode, newTravelTime + toNodeEstimate);
+                    if (SearchMetrics.ENABLED) {
+                        context.countQueueUpdate();
+                    }
+                }
+            }
+            if (currentNode == endNodeNumber) {
+                break;
+            }
+        }
+
+        // Check if the travel time to the endNode is still Integer.MAX_VALUE
+        // This means it is not possible to reach the endNode from the startNode
+        if (context.travelTime(endNodeNumber) == Integer.MAX_VALUE) {
+            return -1;
+        }
+        return context.travelTime(endNodeNumber);
+    }
+
+    /**
+     * Bidirectional ALT for finding the shortest drive time between two points, records the
+     * time it took in SearchMetrics, and logs it at level FINE.
+     * Both the edge file and the inverted edge file must be read.
+     *
+     * @param startNodeNumber the start node's number.
+     * @param endNodeNumber the end node's number.
+     * @return the shortest drive time between two points.
+     */
+    public int bidirectionalALT(int startNodeNumber, int endNodeNumber) {
+        SearchContext forward = searchContext(graph.amountNodes);
+        SearchContext backward = backwardSearchContext(graph.amountNodes);
+        long startTime = System.nanoTime();
+        int travelTime = bidirectionalALT(startNodeNumber, endNodeNumber, forward, backward);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("Bidirectional ALT", forward, backward, latency);
+        logger.fine(() -> "Bidirectional Alt Algorithm from Node: " + startNodeNumber + " to Node: " + endNodeNumber + " in "
+                + latency / 1e6 + " ms, processed nodes: " + (forward.nodesPicked + backward.nodesPicked));
+        return travelTime;
+    }
+
+    /**
+     * Bidirectional ALT for finding the shortest drive time between two points.
+     * The path can be found with getPath(endNodeNumber, forward) afterwards.
+     *
+     * @param startNodeNumber the start node's number.
+     * @param endNodeNumber the end node's number.
+     * @param forward the context the state of the forward search is stored in.
+     * @param backward the context the state of the backward search is stored in.
+     * @return the shortest drive time between two points.
+     */
+    public int bidirectionalALT(int startNodeNumber, int endNodeNumber, SearchContext forward, SearchContext backward) {
+        return bidirectionalALT(startNodeNumber, endNodeNumber, CostMetric.TRAVEL_TIME, forward, backward);
+    }
+
+    /**
+     * Bidirectional ALT for finding the path with the lowest cost in a metric between two
+     * points. The landmarks must be preprocessed with the same metric.
+     *
+     * @param startNodeNumber the start node's number.
+     * @param endNodeNumber the end node's number.
+     * @param metric the cost metric to minimize.
+     * @param forward the context the state of the forward search is stored in.
+     * @param backward the context the state of the backward search is stored in.
+     * @return the lowest cost between two points.
+     */
+    public int bidirectionalALT(int startNodeNumber, int endNodeNumber, CostMetric metric,
+                                SearchContext forward, SearchContext backward) {
+        return bidirectionalALT(startNodeNumber, endNodeNumber, currentVersion(metric), metric, forward, backward);
+    }
+
+    /**
+     * Bidirectional ALT for finding the path with the lowest cost in a metric between two
+     * points in one version of the graphs and the landmarks, see currentVersion.
+     *
+     * @param startNodeNumber the start node's number.
+     * @param endNodeNumber the end node's number.
+     * @param version the version of the graphs and the landmarks to search with.
+     * @param metric the cost metric to minimize.
+     * @param forward the context the state of the forward search is stored in.
+     * @param backward the context the state of the backward search is stored in.
+     * @return the lowest cost between two points.
+     */
+    public int bidirectionalALT(int startNodeNumber, int endNodeNumber, GraphVersion version, CostMetric metric,
+                                SearchContext forward, SearchContext backward) {
+        LandmarkEstimate landmarkEstimate = landmarkEstimate(forward, version.landmarks, metric);
+        landmarkEstimate.prepare(startNodeNumber, endNodeNumber, activeLandmarks);
+        return bidirectionalSearch(startNodeNumber, endNodeNumber, version, metric, forward, backward, landmarkEstimate);
+    }
+
+    /**
+     * Main method - entrypoint.
+     *
+     * @param args String[].
+     */
+    public static void main(String[] args) {
+
+        AltAlgorithm altAlgorithm = new AltAlgorithm();
+        altAlgorithm.readLandmarkFile("preprossesert.bin");
+
+        String nodeFile = "noder.txt";
+        altAlgorithm.readNodeFile(nodeFile);
+
+        String edgeFile = "kanter.txt";
+        altAlgorithm.readEdgeFile(edgeFile);
+
+        int startNode = 5009309;
+        int endNode = 999080;
+        int travelTime = altAlgorithm.ALT(startNode, endNode) / 100; // Divide by 100 to convert it to seconds (from centiseconds)
+        int[] shortestPath = altAlgorithm.getPath(endNode);
+        if (shortestPath.length > 0) {
+            System.out.println("The shortest path contains this amount of nodes: " + shortestPath.length);
+        } else {
+            System.out.println("No path found.");
+        }
+
+        int travelTimeHours = travelTime / 3600;
+        int travelTimeMinutes = (travelTime % 3600) / 60;
+        int travelTimeSeconds = (travelTime - travelTimeHours * 3600 - travelTimeMinutes * 60);
+        System.out.println("The shortest path takes this amount of time: " + travelTimeHours + " hour(s), " + travelTimeMinutes + " minute(s) and " + travelTimeSeconds + " second(s)\n");
+
+        // The execution times and counters, when run with -DsearchMetrics=true.
+        if (SearchMetrics.ENABLED) {
+            System.out.print(SearchMetrics.summary());
+        }
+
+        /*
+        for (int i = 0; i < shortestPath.length; i+=38) {
+            System.out.println(altAlgorithm.latitude[shortestPath[i]] + "," + altAlgorithm.longitude[shortestPath[i]]);
+        }
+         */
+    }
+}
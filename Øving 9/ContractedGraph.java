@@ -0,0 +1,64 @@
+/**
+ * The upward and downward graphs of a contracted road network, see ContractionHierarchy.
+ * The arrays are never changed after the graph is made, and the whole graph is replaced at
+ * once, so a query that has read it searches the same graph to the end.
+ */
+class ContractedGraph {
+    // The version of the road network that was contracted, see DijkstrasAlgorithm.graphVersion.
+    final long version;
+    // The road network that was contracted, null if the edge file had not been read.
+    final RoadGraph roadGraph;
+    // The order each node was contracted in.
+    final int[] rank;
+    // The edges to nodes with a higher rank, the edges of node n are from upwardStart[n] to upwardStart[n + 1].
+    final int[] upwardStart;
+    final int[] upwardTarget;
+    final int[] upwardTravelTime;
+    // The node a shortcut goes through, -1 if the edge is a road.
+    final int[] upwardMiddle;
+    // The edges from nodes with a higher rank, stored at the node they end in.
+    final int[] downwardStart;
+    final int[] downwardSource;
+    final int[] downwardTravelTime;
+    final int[] downwardMiddle;
+
+    /**
+     * Class constructor.
+     *
+     * @param version The version of the road network that was contracted.
+     * @param roadGraph The road network that was contracted, can be null.
+     * @param rank The order each node was contracted in.
+     * @param upwardStart The first upward edge of each node.
+     * @param upwardTarget The node each upward edge ends in.
+     * @param upwardTravelTime The travel time of each upward edge.
+     * @param upwardMiddle The node each upward shortcut goes through, -1 for roads.
+     * @param downwardStart The first downward edge of each node.
+     * @param downwardSource The node each downward edge starts in.
+     * @param downwardTravelTime The travel time of each downward edge.
+     * @param downwardMiddle The node each downward shortcut goes through, -1 for roads.
+     */
+    ContractedGraph(long version, RoadGraph roadGraph, int[] rank,
+                    int[] upwardStart, int[] upwardTarget, int[] upwardTravelTime, int[] upwardMiddle,
+                    int[] downwardStart, int[] downwardSource, int[] downwardTravelTime, int[] downwardMiddle) {
+        this.version = version;
+        this.roadGraph = roadGraph;
+        this.rank = rank;
+        this.upwardStart = upwardStart;
+        this.upwardTarget = upwardTarget;
+        this.upwardTravelTime = upwardTravelTime;
+        this.upwardMiddle = upwardMiddle;
+        this.downwardStart = downwardStart;
+        this.downwardSource = downwardSource;
+        this.downwardTravelTime = downwardTravelTime;
+        this.downwardMiddle = downwardMiddle;
+    }
+
+    /**
+     * Returns the amount of nodes in the graph.
+     *
+     * @return The amount of nodes.
+     */
+    int amountNodes() {
+        return rank.length;
+    }
+}
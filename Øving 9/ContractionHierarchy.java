@@ -0,0 +1,819 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Contraction Hierarchies for route queries that only search a few hundred nodes.
+ * <p>
+ * The nodes are contracted one at a time, starting with the least important ones. When a node
+ * is contracted, every shortest path through it between two nodes that are not contracted yet
+ * is replaced by a shortcut edge, unless a witness search finds another path that is just as
+ * quick. The order a node was contracted in is its rank.
+ * <p>
+ * A query searches forward from the start node and backward from the end node, and both
+ * searches only follow edges to nodes with a higher rank. The shortest path goes up from the
+ * start to its highest node and down to the end, so the two searches meet at that node.
+ * The shortcuts on the path are then unpacked into the edges of the road network.
+ * <p>
+ * The contracted graph is kept in one ContractedGraph, which is replaced as a whole, so the
+ * queries that are running when the travel times change finish on the graph they started on.
+ * <p>
+ * The contracted graph file is binary, with every number as a little-endian int, except
+ * graphVersion, which is a little-endian long:<br>
+ * ------------------------------------------------------------------<br>
+ * MAGIC VERSION amountNodes graphVersion amountUpwardEdges amountDownwardEdges<br>
+ * rank(0) ... rank(amountNodes - 1)<br>
+ * upwardStart, upwardTarget, upwardTravelTime, upwardMiddle<br>
+ * downwardStart, downwardSource, downwardTravelTime, downwardMiddle<br>
+ * ------------------------------------------------------------------<br>
+ */
+class ContractionHierarchy extends DijkstrasAlgorithm {
+    // Identifies a contracted graph file, the bytes "CHGR".
+    static final int MAGIC = 0x43484752;
+    // The version of the file format.
+    static final int VERSION = 2;
+    // The size of the header in bytes.
+    private static final int HEADER_BYTES = 7 * Integer.BYTES;
+
+    // The most nodes a witness search picks from the queue before it gives up and a
+    // shortcut is added. A lower limit makes the contraction quicker, but adds more shortcuts.
+    protected int witnessSearchLimit = 500;
+    // The limit used when the shortcuts are only counted to find the priority of a node.
+    protected int priorityWitnessSearchLimit = 50;
+
+    // The contracted graph, null before the graph is contracted or read, and after the travel
+    // times change. A query reads it once, and searches that graph to the end.
+    protected volatile ContractedGraph contracted;
+
+    /**
+     * Updates the travel times of the graph, see DijkstrasAlgorithm.updateTravelTimes.
+     * The shortcuts hold the sums of the travel times when the graph was contracted, so the
+     * contracted graph is removed, and CH queries throw an IllegalStateException until
+     * contract is called again. The other algorithms use the new travel times right away.
+     *
+     * @param updates The new travel times.
+     * @return The number of the new version of the graph.
+     * @throws IllegalArgumentException if there is no edge between two nodes in the batch.
+     * @throws IllegalStateException if landmarks have to be repaired and the inverted graph has not been read.
+     */
+    @Override
+    public synchronized long updateTravelTimes(EdgeWeightUpdates updates) {
+        long version = super.updateTravelTimes(updates);
+        contracted = null;
+        return version;
+    }
+
+    /**
+     * Returns the contracted graph.
+     *
+     * @return The contracted graph.
+     * @throws IllegalStateException if the graph has not been contracted since the travel times changed.
+     */
+    ContractedGraph contractedGraph() {
+        ContractedGraph contractedGraph = contracted;
+        if (contractedGraph == null) {
+            throw new IllegalStateException("The graph has to be contracted after the travel times change");
+        }
+        return contractedGraph;
+    }
+
+    /**
+     * Contracts every node in the graph, and builds the upward and downward graphs.
+     * The edge file must be read first.
+     *
+     * @throws IllegalStateException if the travel times changed while the graph was contracted.
+     */
+    public void contract() {
+        GraphVersion version = currentVersion(CostMetric.TRAVEL_TIME);
+        ContractedGraph contractedGraph = new Contraction(version.number, version.graph).run();
+        publish(contractedGraph);
+        logger.info("DONE CONTRACTING: " + (contractedGraph.upwardTarget.length
+                + contractedGraph.downwardSource.length) + " edges");
+    }
+
+    /**
+     * Makes a contracted graph the one the queries use, if it was made from the current
+     * travel times. Holds the same lock as updateTravelTimes, so an update can not come in
+     * between the check and the swap.
+     *
+     * @param contractedGraph The contracted graph.
+     * @throws IllegalStateException if the graph is not contracted from the current travel times.
+     */
+    private synchronized void publish(ContractedGraph contractedGraph) {
+        if (contractedGraph.version != graphVersion()) {
+            throw new IllegalStateException("The travel times changed while the graph was contracted");
+        }
+        contracted = contractedGraph;
+    }
+
+    /**
+     * The state of the graph while it is being contracted. Each node has a list of the
+     * edges out of it and into it, which shortcuts are added to. The lists of the nodes that
+     * are not contracted yet only hold edges between nodes that are not contracted.
+     */
+    private class Contraction {
+        // The version of the road network that is contracted.
+        private final long version;
+        private final RoadGraph roadGraph;
+        private final int amountNodes;
+        private final EdgeList[] outgoing;
+        private final EdgeList[] incoming;
+        // Amount of neighbours of each node that are contracted, spreads the contraction over the graph.
+        private final int[] contractedNeighbours;
+        // The context of the witness searches.
+        private final SearchContext witness;
+        // The order each node was contracted in.
+        private final int[] rank;
+
+        /**
+         * Class constructor, copies the edges of the graph into the edge lists.
+         *
+         * @param version The version of the road network.
+         * @param roadGraph The road network.
+         */
+        Contraction(long version, RoadGraph roadGraph) {
+            this.version = version;
+            this.roadGraph = roadGraph;
+            this.amountNodes = roadGraph.amountNodes;
+            rank = new int[amountNodes];
+            outgoing = new EdgeList[amountNodes];
+            incoming = new EdgeList[amountNodes];
+            for (int node = 0; node < amountNodes; node++) {
+                outgoing[node] = new EdgeList();
+                incoming[node] = new EdgeList();
+            }
+            contractedNeighbours = new int[amountNodes];
+            witness = newSearchContext(amountNodes);
+            for (int node = 0; node < amountNodes; node++) {
+                for (int edge = roadGraph.edgeStart[node]; edge < roadGraph.edgeStart[node + 1]; edge++) {
+                    addEdge(node, roadGraph.edgeTarget[edge], roadGraph.travelTime[edge], -1);
+                }
+            }
+        }
+
+        /**
+         * Contracts the nodes in the order of their priority. A node's priority can only
+         * grow when its neighbours are contracted, so it is computed again when the node is
+         * picked, and the node is put back if it is no longer the lowest.
+         *
+         * @return The contracted graph.
+         */
+        ContractedGraph run() {
+            NodePriorityQueue order = queueType.create(amountNodes);
+            for (int node = 0; node < amountNodes; node++) {
+                order.addOrDecrease(node, priority(node));
+            }
+            int nextRank = 0;
+            while (!order.isEmpty()) {
+                int node = order.poll();
+                int priority = priority(node);
+                if (!order.isEmpty() && priority > order.peekPriority()) {
+                    order.addOrDecrease(node, priority);
+                    continue;
+                }
+                contractNode(node, true);
+                rank[node] = nextRank++;
+                // The node keeps its own edges, which all go to nodes with a higher rank now,
+                // but the neighbours forget the edges to it so their lists stay short.
+                for (int i = 0; i < outgoing[node].size; i++) {
+                    int neighbour = outgoing[node].node[i];
+                    incoming[neighbour].remove(incoming[neighbour].indexOf(node));
+                    contractedNeighbours[neighbour]++;
+                }
+                for (int i = 0; i < incoming[node].size; i++) {
+                    int neighbour = incoming[node].node[i];
+                    outgoing[neighbour].remove(outgoing[neighbour].indexOf(node));
+                    contractedNeighbours[neighbour]++;
+                }
+            }
+            return buildSearchGraphs();
+        }
+
+        /**
+         * Returns the priority of a node, lower is contracted first: the edge difference, the amount
+         * of shortcuts contracting it would add minus the edges it would remove, plus the amount of
+         * contracted neighbours.
+         *
+         * @param node The node number.
+         * @return The priority.
+         */
+        private int priority(int node) {
+            int removedEdges = outgoing[node].size + incoming[node].size;
+            return contractNode(node, false) - removedEdges + contractedNeighbours[node];
+        }
+
+        /**
+         * Finds the shortcuts needed to contract a node: for every pair of neighbours where
+         * the path through the node is shorter than any witness path around it.
+         *
+         * @param node The node number.
+         * @param addShortcuts true to add the shortcuts, false to only count them.
+         * @return The amount of shortcuts.
+         */
+        private int contractNode(int node, boolean addShortcuts) {
+            int shortcuts = 0;
+            EdgeList in = incoming[node];
+            EdgeList out = outgoing[node];
+            for (int i = 0; i < in.size; i++) {
+                int fromNode = in.node[i];
+                int longestPath = -1;
+                for (int j = 0; j < out.size; j++) {
+                    int toNode = out.node[j];
+                    if (toNode != fromNode) {
+                        longestPath = Math.max(longestPath, in.travelTime[i] + out.travelTime[j]);
+                    }
+                }
+                if (longestPath == -1) {
+                    continue;
+                }
+                witnessSearch(fromNode, node, longestPath, addShortcuts ? witnessSearchLimit : priorityWitnessSearchLimit);
+                for (int j = 0; j < out.size; j++) {
+                    int toNode = out.node[j];
+                    if (toNode == fromNode) {
+                        continue;
+                    }
+                    int pathTravelTime = in.travelTime[i] + out.travelTime[j];
+                    if (witness.travelTime(toNode) <= pathTravelTime) {
+                        continue;
+                    }
+                    shortcuts++;
+                    if (addShortcuts) {
+                        addEdge(fromNode, toNode, pathTravelTime, node);
+                    }
+                }
+            }
+            return shortcuts;
+        }
+
+        /**
+         * Dijkstra from a node through the nodes that are not contracted, without going through
+         * the node being contracted. It stops at the search limit, or when every node closer
+         * than the longest path through the contracted node has been picked.
+         *
+         * @param startNode The node the search starts in.
+         * @param avoidedNode The node being contracted.
+         * @param longestPath The longest travel time that needs a witness.
+         * @param searchLimit The most nodes to pick from the queue.
+         */
+        private void witnessSearch(int startNode, int avoidedNode, int longestPath, int searchLimit) {
+            witness.reset();
+            witness.update(startNode, 0, -1);
+            NodePriorityQueue priorityQueue = witness.priorityQueue;
+            priorityQueue.addOrDecrease(startNode, 0);
+            while (!priorityQueue.isEmpty() && witness.nodesPicked < searchLimit) {
+                int currentNode = priorityQueue.poll();
+                witness.nodesPicked++;
+                int currentTravelTime = witness.travelTime(currentNode);
+                if (currentTravelTime > longestPath) {
+                    break;
+                }
+                EdgeList edges = outgoing[currentNode];
+                for (int i = 0; i < edges.size; i++) {
+                    int toNode = edges.node[i];
+                    if (toNode == avoidedNode) {
+                        continue;
+                    }
+                    int newTravelTime = currentTravelTime + edges.travelTime[i];
+                    if (newTravelTime < witness.travelTime(toNode)) {
+                        witness.update(toNode, newTravelTime, currentNode);
+                        priorityQueue.addOrDecrease(toNode, newTravelTime);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Adds an edge, or lowers the travel time of the edge if there already is one between the nodes.
+         *
+         * @param fromNode The node the edge starts in.
+         * @param toNode The node the edge ends in.
+         * @param travelTime The travel time of the edge.
+         * @param middle The node a shortcut goes through, -1 if the edge is a road.
+         */
+        private void addEdge(int fromNode, int toNode, int travelTime, int middle) {
+            if (fromNode == toNode) {
+                return;
+            }
+            int index = outgoing[fromNode].indexOf(toNode);
+            if (index == -1) {
+                outgoing[fromNode].add(toNode, travelTime, middle);
+                incoming[toNode].add(fromNode, travelTime, middle);
+            } else if (travelTime < outgoing[fromNode].travelTime[index]) {
+                outgoing[fromNode].set(index, travelTime, middle);
+                incoming[toNode].set(incoming[toNode].indexOf(fromNode), travelTime, middle);
+            }
+        }
+
+        /**
+         * Builds the upward and downward graph, stored the same way as the edges of a RoadGraph.
+         * Once every node is contracted, the edge lists of a node only hold the edges to and from
+         * nodes with a higher rank.
+         *
+         * @return The contracted graph.
+         */
+        private ContractedGraph buildSearchGraphs() {
+            int[] upwardStart = new int[amountNodes + 1];
+            int[] downwardStart = new int[amountNodes + 1];
+            for (int node = 0; node < amountNodes; node++) {
+                upwardStart[node + 1] = upwardStart[node] + outgoing[node].size;
+                downwardStart[node + 1] = downwardStart[node] + incoming[node].size;
+            }
+            int[] upwardTarget = new int[upwardStart[amountNodes]];
+            int[] upwardTravelTime = new int[upwardTarget.length];
+            int[] upwardMiddle = new int[upwardTarget.length];
+            int[] downwardSource = new int[downwardStart[amountNodes]];
+            int[] downwardTravelTime = new int[downwardSource.length];
+            int[] downwardMiddle = new int[downwardSource.length];
+            for (int node = 0; node < amountNodes; node++) {
+                EdgeList out = outgoing[node];
+                System.arraycopy(out.node, 0, upwardTarget, upwardStart[node], out.size);
+                System.arraycopy(out.travelTime, 0, upwardTravelTime, upwardStart[node], out.size);
+                System.arraycopy(out.middle, 0, upwardMiddle, upwardStart[node], out.size);
+                EdgeList in = incoming[node];
+                System.arraycopy(in.node, 0, downwardSource, downwardStart[node], in.size);
+                System.arraycopy(in.travelTime, 0, downwardTravelTime, downwardStart[node], in.size);
+                System.arraycopy(in.middle, 0, downwardMiddle, downwardStart[node], in.size);
+            }
+            return new ContractedGraph(version, roadGraph, rank, upwardStart, upwardTarget, upwardTravelTime,
+                    upwardMiddle, downwardStart, downwardSource, downwardTravelTime, downwardMiddle);
+        }
+    }
+
+    /**
+     * Growable list of the edges of one node during the contraction.
+     */
+    private static class EdgeList {
+        // The node at the other end of each edge.
+        int[] node = new int[4];
+        int[] travelTime = new int[4];
+        // The node a shortcut goes through, -1 if the edge is a road.
+        int[] middle = new int[4];
+        int size = 0;
+
+        /**
+         * Adds an edge to the list.
+         *
+         * @param otherNode The node at the other end of the edge.
+         * @param edgeTravelTime The travel time of the edge.
+         * @param middleNode The node a shortcut goes through, -1 if the edge is a road.
+         */
+        void add(int otherNode, int edgeTravelTime, int middleNode) {
+            if (size == node.length) {
+                node = Arrays.copyOf(node, size * 2);
+                travelTime = Arrays.copyOf(travelTime, size * 2);
+                middle = Arrays.copyOf(middle, size * 2);
+            }
+            node[size] = otherNode;
+            travelTime[size] = edgeTravelTime;
+            middle[size] = middleNode;
+            size++;
+        }
+
+        /**
+         * Changes the travel time of an edge in the list.
+         *
+         * @param index The index of the edge.
+         * @param edgeTravelTime The new travel time.
+         * @param middleNode The node a shortcut goes through, -1 if the edge is a road.
+         */
+        void set(int index, int edgeTravelTime, int middleNode) {
+            travelTime[index] = edgeTravelTime;
+            middle[index] = middleNode;
+        }
+
+        /**
+         * Removes an edge from the list, the last edge takes its place.
+         *
+         * @param index The index of the edge.
+         */
+        void remove(int index) {
+            size--;
+            node[index] = node[size];
+            travelTime[index] = travelTime[size];
+            middle[index] = middle[size];
+        }
+
+        /**
+         * Finds the edge to a node.
+         *
+         * @param otherNode The node at the other end of the edge.
+         * @return The index of the edge, -1 if there is none.
+         */
+        int indexOf(int otherNode) {
+            for (int i = 0; i < size; i++) {
+                if (node[i] == otherNode) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Finds the shortest travel time with the contracted graph, records the time it took in
+     * SearchMetrics, and logs it at level FINE.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @return The shortest travel time from the start node to the end node in centiseconds. Returns -1 if there is no path.
+     */
+    public int CH(int startNodeNumber, int endNodeNumber) {
+        ContractedGraph contractedGraph = contractedGraph();
+        SearchContext forward = searchContext(contractedGraph.amountNodes());
+        SearchContext backward = backwardSearchContext(contractedGraph.amountNodes());
+        long startTime = System.nanoTime();
+        int travelTime = CH(startNodeNumber, endNodeNumber, contractedGraph, forward, backward);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("Contraction Hierarchies", forward, backward, latency);
+        logger.fine(() -> "Contraction Hierarchies from Node: " + startNodeNumber + " to Node: " + endNodeNumber + " in "
+                + latency / 1e6 + " ms, processed nodes: " + (forward.nodesPicked + backward.nodesPicked));
+        return travelTime;
+    }
+
+    /**
+     * Finds the shortest travel time with the contracted graph. The searches go upward from
+     * both ends, and each of them can stop when its lowest travel time in the queue is at least
+     * the shortest path found, since the rest of the path would only make it longer.
+     * The path is unpacked into the forward context, so getPath(endNodeNumber, forward) returns
+     * the nodes of the road network afterwards.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param forward         The context the state of the forward search is stored in.
+     * @param backward        The context the state of the backward search is stored in.
+     * @return The shortest travel time from the start node to the end node in centiseconds. Returns -1 if there is no path.
+     * @throws IllegalStateException if the graph has not been contracted since the travel times changed.
+     */
+    public int CH(int startNodeNumber, int endNodeNumber, SearchContext forward, SearchContext backward) {
+        return CH(startNodeNumber, endNodeNumber, contractedGraph(), forward, backward);
+    }
+
+    /**
+     * Finds the shortest travel time in one contracted graph, see CH(int, int, SearchContext, SearchContext).
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param contractedGraph The contracted graph to search through.
+     * @param forward         The context the state of the forward search is stored in.
+     * @param backward        The context the state of the backward search is stored in.
+     * @return The shortest travel time from the start node to the end node in centiseconds. Returns -1 if there is no path.
+     */
+    private int CH(int startNodeNumber, int endNodeNumber, ContractedGraph contractedGraph,
+                   SearchContext forward, SearchContext backward) {
+        forward.reset();
+        backward.reset();
+        forward.update(startNodeNumber, 0, -1);
+        backward.update(endNodeNumber, 0, -1);
+        forward.priorityQueue.addOrDecrease(startNodeNumber, 0);
+        backward.priorityQueue.addOrDecrease(endNodeNumber, 0);
+
+        int shortestTravelTime = Integer.MAX_VALUE;
+        int meetingNode = -1;
+        while (true) {
+            boolean forwardActive = !forward.priorityQueue.isEmpty()
+                    && forward.priorityQueue.peekPriority() < shortestTravelTime;
+            boolean backwardActive = !backward.priorityQueue.isEmpty()
+                    && backward.priorityQueue.peekPriority() < shortestTravelTime;
+            if (!forwardActive && !backwardActive) {
+                break;
+            }
+            boolean forwardTurn = forwardActive && (!backwardActive
+                    || forward.priorityQueue.peekPriority() <= backward.priorityQueue.peekPriority());
+            SearchContext context = forwardTurn ? forward : backward;
+            SearchContext other = forwardTurn ? backward : forward;
+            int[] edgeStart = forwardTurn ? contractedGraph.upwardStart : contractedGraph.downwardStart;
+            int[] edgeNode = forwardTurn ? contractedGraph.upwardTarget : contractedGraph.downwardSource;
+            int[] edgeTravelTime = forwardTurn ? contractedGraph.upwardTravelTime : contractedGraph.downwardTravelTime;
+
+            int currentNode = context.priorityQueue.poll();
+            context.nodesPicked++;
+            int currentTravelTime = context.travelTime(currentNode);
+            int otherTravelTime = other.travelTime(currentNode);
+            if (otherTravelTime != Integer.MAX_VALUE && currentTravelTime + otherTravelTime < shortestTravelTime) {
+                shortestTravelTime = currentTravelTime + otherTravelTime;
+                meetingNode = currentNode;
+            }
+            if (SearchMetrics.ENABLED) {
+                context.edgesRelaxed += edgeStart[currentNode + 1] - edgeStart[currentNode];
+            }
+            for (int edge = edgeStart[currentNode]; edge < edgeStart[currentNode + 1]; edge++) {
+                int toNode = edgeNode[edge];
+                int newTravelTime = currentTravelTime + edgeTravelTime[edge];
+                if (newTravelTime < context.travelTime(toNode)) {
+                    if (SearchMetrics.ENABLED && context.travelTime(toNode) != Integer.MAX_VALUE) {
+                        context.decreaseKeys++;
+                    }
+                    context.update(toNode, newTravelTime, currentNode);
+                    context.priorityQueue.addOrDecrease(toNode, newTravelTime);
+                    if (SearchMetrics.ENABLED) {
+                        context.countQueueUpdate();
+                    }
+                }
+            }
+        }
+
+        if (meetingNode == -1) {
+            return -1;
+        }
+        unpackPath(contractedGraph, startNodeNumber, meetingNode, forward, backward);
+        return shortestTravelTime;
+    }
+
+    /**
+     * Searches upward from a node until the queue is empty, without a goal. The forward search
+     * follows the upward graph, and the backward search follows the downward graph against the
+     * direction of the edges. The travel times can be read from the context afterwards.
+     *
+     * @param contractedGraph The contracted graph to search through, see contractedGraph.
+     * @param startNodeNumber The node the search starts in.
+     * @param forward         true for the forward search, false for the backward search.
+     * @param context         The context the state of the search is stored in.
+     * @return The nodes picked from the queue, in the order they were picked.
+     */
+    int[] upwardSearch(ContractedGraph contractedGraph, int startNodeNumber, boolean forward, SearchContext context) {
+        int[] edgeStart = forward ? contractedGraph.upwardStart : contractedGraph.downwardStart;
+        int[] edgeNode = forward ? contractedGraph.upwardTarget : contractedGraph.downwardSource;
+        int[] edgeTravelTime = forward ? contractedGraph.upwardTravelTime : contractedGraph.downwardTravelTime;
+        context.reset();
+        context.update(startNodeNumber, 0, -1);
+        context.priorityQueue.addOrDecrease(startNodeNumber, 0);
+        int[] picked = new int[64];
+        while (!context.priorityQueue.isEmpty()) {
+            int currentNode = context.priorityQueue.poll();
+            if (context.nodesPicked == picked.length) {
+                picked = Arrays.copyOf(picked, picked.length * 2);
+            }
+            picked[context.nodesPicked++] = currentNode;
+            int currentTravelTime = context.travelTime(currentNode);
+            if (SearchMetrics.ENABLED) {
+                context.edgesRelaxed += edgeStart[currentNode + 1] - edgeStart[currentNode];
+            }
+            for (int edge = edgeStart[currentNode]; edge < edgeStart[currentNode + 1]; edge++) {
+                int toNode = edgeNode[edge];
+                int newTravelTime = currentTravelTime + edgeTravelTime[edge];
+                if (newTravelTime < context.travelTime(toNode)) {
+                    if (SearchMetrics.ENABLED && context.travelTime(toNode) != Integer.MAX_VALUE) {
+                        context.decreaseKeys++;
+                    }
+                    context.update(toNode, newTravelTime, currentNode);
+                    context.priorityQueue.addOrDecrease(toNode, newTravelTime);
+                    if (SearchMetrics.ENABLED) {
+                        context.countQueueUpdate();
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(picked, context.nodesPicked);
+    }
+
+    /**
+     * Unpacks the path from the start node up to the meeting node and down to the end node,
+     * and stores it in the forward context as if a search of the road network had found it.
+     *
+     * @param contractedGraph The contracted graph that was searched.
+     * @param startNodeNumber The starting node´s node number.
+     * @param meetingNode     The highest node on the path.
+     * @param forward         The context of the forward search.
+     * @param backward        The context of the backward search.
+     */
+    private void unpackPath(ContractedGraph contractedGraph, int startNodeNumber, int meetingNode,
+                            SearchContext forward, SearchContext backward) {
+        // The path in the contracted graph, read before the forward context is changed.
+        int[] upwardPath = getPath(meetingNode, forward);
+        int downwardLength = 0;
+        for (int node = meetingNode; node != -1; node = backward.previousNode(node)) {
+            downwardLength++;
+        }
+        int[] path = Arrays.copyOf(upwardPath, upwardPath.length + downwardLength - 1);
+        int index = upwardPath.length;
+        for (int node = backward.previousNode(meetingNode); node != -1; node = backward.previousNode(node)) {
+            path[index++] = node;
+        }
+
+        forward.update(startNodeNumber, 0, -1);
+        int travelTime = 0;
+        // Edges that still have to be unpacked, the next one to unpack is on the top.
+        int[] stack = new int[16];
+        // The edges are unpacked from the start node, so the travel times add up from the start.
+        for (int i = 1; i < path.length; i++) {
+            int stackSize = 0;
+            stack[stackSize++] = path[i - 1];
+            stack[stackSize++] = path[i];
+            while (stackSize > 0) {
+                int toNode = stack[--stackSize];
+                int fromNode = stack[--stackSize];
+                int edge = findEdge(contractedGraph, fromNode, toNode);
+                boolean upward = contractedGraph.rank[toNode] > contractedGraph.rank[fromNode];
+                int middle = upward ? contractedGraph.upwardMiddle[edge] : contractedGraph.downwardMiddle[edge];
+                if (middle == -1) {
+                    int roadTravelTime = upward ? contractedGraph.upwardTravelTime[edge]
+                            : contractedGraph.downwardTravelTime[edge];
+                    travelTime += roadTravelTime;
+                    forward.update(toNode, travelTime, fromNode,
+                            roadEdge(contractedGraph.roadGraph, fromNode, toNode, roadTravelTime));
+                    continue;
+                }
+                if (stackSize + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                // The second half is unpacked after the first half.
+                stack[stackSize++] = middle;
+                stack[stackSize++] = toNode;
+                stack[stackSize++] = fromNode;
+                stack[stackSize++] = middle;
+            }
+        }
+    }
+
+    /**
+     * Finds a road between two nodes in the road network, so the unpacked path has the same
+     * edges as a path found by a search of the road network.
+     *
+     * @param roadGraph The road network that was contracted, can be null.
+     * @param fromNode The node the road starts in.
+     * @param toNode The node the road ends in.
+     * @param travelTime The travel time of the road in the contracted graph.
+     * @return The index of the road in the road network, the quickest one if no road has the travel time.
+     * -1 if the road network is null.
+     */
+    private static int roadEdge(RoadGraph roadGraph, int fromNode, int toNode, int travelTime) {
+        if (roadGraph == null) {
+            return -1;
+        }
+        int found = -1;
+        for (int edge = roadGraph.edgeStart[fromNode]; edge < roadGraph.edgeStart[fromNode + 1]; edge++) {
+            if (roadGraph.edgeTarget[edge] != toNode) {
+                continue;
+            }
+            if (roadGraph.travelTime[edge] == travelTime) {
+                return edge;
+            }
+            if (found == -1 || roadGraph.travelTime[edge] < roadGraph.travelTime[found]) {
+                found = edge;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the edge between two nodes in the upward or downward graph.
+     *
+     * @param contractedGraph The contracted graph.
+     * @param fromNode The node the edge starts in.
+     * @param toNode The node the edge ends in.
+     * @return The index in the upward graph if toNode has the higher rank, else in the downward graph.
+     */
+    private static int findEdge(ContractedGraph contractedGraph, int fromNode, int toNode) {
+        if (contractedGraph.rank[toNode] > contractedGraph.rank[fromNode]) {
+            for (int edge = contractedGraph.upwardStart[fromNode]; edge < contractedGraph.upwardStart[fromNode + 1]; edge++) {
+                if (contractedGraph.upwardTarget[edge] == toNode) {
+                    return edge;
+                }
+            }
+        } else {
+            for (int edge = contractedGraph.downwardStart[toNode]; edge < contractedGraph.downwardStart[toNode + 1]; edge++) {
+                if (contractedGraph.downwardSource[edge] == fromNode) {
+                    return edge;
+                }
+            }
+        }
+        throw new IllegalStateException("No edge from " + fromNode + " to " + toNode + " in the contracted graph");
+    }
+
+    /**
+     * Writes the contracted graph to a binary file. See {@link ContractionHierarchy} for the format.
+     *
+     * @param fileName The name of the file.
+     * @throws IOException if there was a problem writing to file.
+     * @throws IllegalStateException if the graph has not been contracted since the travel times changed.
+     */
+    public void writeContractionFile(String fileName) throws IOException {
+        ContractedGraph contractedGraph = contractedGraph();
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Everything is written through a buffer of one megabyte.
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(contractedGraph.amountNodes()).putLong(contractedGraph.version)
+                    .putInt(contractedGraph.upwardTarget.length).putInt(contractedGraph.downwardSource.length);
+            int[][] arrays = {contractedGraph.rank, contractedGraph.upwardStart, contractedGraph.upwardTarget,
+                    contractedGraph.upwardTravelTime, contractedGraph.upwardMiddle, contractedGraph.downwardStart,
+                    contractedGraph.downwardSource, contractedGraph.downwardTravelTime, contractedGraph.downwardMiddle};
+            for (int[] array : arrays) {
+                for (int value : array) {
+                    if (!buffer.hasRemaining()) {
+                        writeFully(channel, buffer.flip());
+                        buffer.clear();
+                    }
+                    buffer.putInt(value);
+                }
+            }
+            writeFully(channel, buffer.flip());
+        }
+    }
+
+    /**
+     * Writes everything in a buffer to a channel.
+     *
+     * @param channel The channel.
+     * @param buffer The buffer.
+     * @throws IOException if there was a problem writing to file.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a contracted graph written by writeContractionFile. The file is memory mapped a part
+     * at a time, see MappedFileReader, and copied straight into the arrays, without parsing.
+     * The node file must be read first, and the file is only used if it was contracted from the
+     * same amount of nodes and the same version of the travel times as the graph has now.
+     *
+     * @param fileName The name of the file.
+     */
+    public void readContractionFile(String fileName) {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(fileName + " is not a contracted graph file of version " + VERSION);
+            }
+            int fileNodes = header.getInt();
+            long fileVersion = header.getLong();
+            int amountUpward = header.getInt();
+            int amountDownward = header.getInt();
+            if (fileNodes != amountNodes || fileVersion != graphVersion()) {
+                throw new IOException(fileName + " is contracted from " + fileNodes + " nodes at version "
+                        + fileVersion + ", but the graph has " + amountNodes + " nodes at version " + graphVersion());
+            }
+            // The arrays are read into locals and published together, so a file that can not be
+            // read to the end leaves the graph as it was.
+            MappedFileReader reader = new MappedFileReader(channel, fileName, HEADER_BYTES);
+            int[] rank = reader.readInts(fileNodes);
+            int[] upwardStart = reader.readInts(fileNodes + 1);
+            int[] upwardTarget = reader.readInts(amountUpward);
+            int[] upwardTravelTime = reader.readInts(amountUpward);
+            int[] upwardMiddle = reader.readInts(amountUpward);
+            int[] downwardStart = reader.readInts(fileNodes + 1);
+            int[] downwardSource = reader.readInts(amountDownward);
+            int[] downwardTravelTime = reader.readInts(amountDownward);
+            int[] downwardMiddle = reader.readInts(amountDownward);
+            publish(new ContractedGraph(fileVersion, graph, rank, upwardStart, upwardTarget, upwardTravelTime,
+                    upwardMiddle, downwardStart, downwardSource, downwardTravelTime, downwardMiddle));
+            logger.info("DONE READING: " + fileName);
+        } catch (IOException | IllegalStateException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Main method - Contracts the graph the first time, then reads the contracted graph file.
+     *
+     * @param args String[].
+     */
+    public static void main(String[] args) {
+        ContractionHierarchy ch = new ContractionHierarchy();
+        ch.readNodeFile("noder.txt");
+
+        String contractionFile = "kontrahert.bin";
+        if (new File(contractionFile).exists()) {
+            ch.readContractionFile(contractionFile);
+        }
+        // The graph is contracted again if there is no file, or the file is for another graph.
+        if (ch.contracted == null) {
+            ch.readEdgeFile("kanter.txt");
+            ch.contract();
+            try {
+                ch.writeContractionFile(contractionFile);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        int startNode = 5009309;
+        int endNode = 999080;
+        int travelTime = ch.CH(startNode, endNode) / 100; // Divide by 100 to convert it to seconds (from centiseconds)
+        int[] shortestPath = ch.getPath(endNode);
+        if (shortestPath.length > 0) {
+            System.out.println("The shortest path contains this amount of nodes: " + shortestPath.length);
+        } else {
+            System.out.println("No path found.");
+        }
+
+        int travelTimeHours = travelTime / 3600;
+        int travelTimeMinutes = (travelTime % 3600) / 60;
+        int travelTimeSeconds = (travelTime - travelTimeHours * 3600 - travelTimeMinutes * 60);
+        System.out.println("The shortest path takes this amount of time: " + travelTimeHours + " hour(s), " + travelTimeMinutes + " minute(s) and " + travelTimeSeconds + " second(s)\n");
+
+        // The execution times and counters, when run with -DsearchMetrics=true.
+        if (SearchMetrics.ENABLED) {
+            System.out.print(SearchMetrics.summary());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ * What a search minimizes: the travel time, the distance, or a weighted combination.
+ * <p>
+ * The cost of an edge only depends on its travel time, length and speed limit, so the cost of
+ * every edge in a graph is computed once, and the searches read it from one array the same way
+ * they read the travel times. See RoadGraph.weights.
+ * <p>
+ * Metrics are compared by identity, so a weighted metric should be made once and reused.
+ */
+class CostMetric {
+    // The travel time in centiseconds, what the searches have always minimized.
+    static final CostMetric TRAVEL_TIME = new CostMetric("travel time", 1, 0, 0, 1);
+    // The length in meters.
+    static final CostMetric DISTANCE = new CostMetric("distance", 0, 1, 0, 1);
+
+    // The name of the metric, used in messages.
+    final String name;
+    // The cost of a centisecond of travel time and of a meter of length.
+    private final double travelTimeWeight;
+    private final double lengthWeight;
+    // Edges with a lower speed limit than this cost lowSpeedFactor times as much.
+    private final int lowSpeedLimit;
+    private final double lowSpeedFactor;
+
+    /**
+     * Class constructor.
+     *
+     * @param name The name of the metric.
+     * @param travelTimeWeight The cost of a centisecond of travel time.
+     * @param lengthWeight The cost of a meter of length.
+     * @param lowSpeedLimit Edges with a lower speed limit cost more, 0 for no edges.
+     * @param lowSpeedFactor How many times as much the edges with a low speed limit cost, at least 1.
+     */
+    private CostMetric(String name, double travelTimeWeight, double lengthWeight, int lowSpeedLimit,
+                       double lowSpeedFactor) {
+        this.name = name;
+        this.travelTimeWeight = travelTimeWeight;
+        this.lengthWeight = lengthWeight;
+        this.lowSpeedLimit = lowSpeedLimit;
+        this.lowSpeedFactor = lowSpeedFactor;
+    }
+
+    /**
+     * Makes a metric that is a weighted sum of the travel time and the length, where edges
+     * with a low speed limit can cost more, for example to keep trucks on the main roads.
+     *
+     * @param name The name of the metric.
+     * @param travelTimeWeight The cost of a centisecond of travel time.
+     * @param lengthWeight The cost of a meter of length.
+     * @param lowSpeedLimit Edges with a lower speed limit cost more, 0 for no edges.
+     * @param lowSpeedFactor How many times as much the edges with a low speed limit cost.
+     * @return The metric.
+     * @throws IllegalArgumentException if a weight is negative or the factor is below 1.
+     */
+    static CostMetric weighted(String name, double travelTimeWeight, double lengthWeight, int lowSpeedLimit,
+                               double lowSpeedFactor) {
+        // Dijkstra´s algorithm needs costs that are not negative.
+        if (travelTimeWeight < 0 || lengthWeight < 0 || lowSpeedFactor < 1) {
+            throw new IllegalArgumentException("The weights of " + name + " can not be negative, and the factor not below 1");
+        }
+        return new CostMetric(name, travelTimeWeight, lengthWeight, lowSpeedLimit, lowSpeedFactor);
+    }
+
+    /**
+     * Returns the cost of an edge.
+     *
+     * @param travelTime The travel time of the edge in centiseconds.
+     * @param length The length of the edge in meters.
+     * @param speedLimit The speed limit of the edge.
+     * @return The cost, rounded to an int.
+     */
+    int cost(int travelTime, int length, int speedLimit) {
+        double cost = travelTimeWeight * travelTime + lengthWeight * length;
+        if (speedLimit < lowSpeedLimit) {
+            cost *= lowSpeedFactor;
+        }
+        // Capped so a path of many edges can still be summed in an int.
+        return (int) Math.min(Math.round(cost), Integer.MAX_VALUE / 1024);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
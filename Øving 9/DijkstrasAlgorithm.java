@@ -1,100 +1,51 @@
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntPredicate;
 import java.util.logging.Logger;
 
-import static java.util.Comparator.comparingInt;
-
-/**
- * Class that represents a Node.
- */
-class Node {
-    // Number that represents the node.
-    int nodeNumber;
-    // The latitude coordinate of the node.
-    double latitude;
-    // The longitude coordinate of the node.
-    double longitude;
-    // List of all the edges from the Node
-    List<Edge> edges = new ArrayList<>();
-    // Travel time from starting Node, initially set to "infinite"
-    int travelTimeFromStartNode = Integer.MAX_VALUE;
-    // Estimate for the node calculated from landmarks.
-    int estimate = 0;
-    // Previous node in the shortest path
-    Node previousNode = null;
-
-    /**
-     * Class constructor.
-     *
-     * @param nodeNumber Number that represents the node.
-     * @param latitude The latitude coordinate of the node.
-     * @param longitude The longitude coordinate of the node.
-     */
-    public Node(int nodeNumber, double latitude, double longitude) {
-        this.nodeNumber = nodeNumber;
-        this.latitude = latitude;
-        this.longitude = longitude;
-    }
-}
-
-/**
- * Class that represents an edge between two Nodes
- */
-class Edge {
-    // The node the edge is going from.
-    Node fromNode;
-    // The node the edge is going to.
-    Node toNode;
-    // The time it takes to traverse the edge in centi-seconds.
-    int travelTime;
-    // The length of the edge in meters.
-    int length;
-    // The speed limit when traversing the edge.
-    int speedLimit;
-
-    /**
-     * Class constructor.
-     *
-     * @param fromNode The starting node of the edge.
-     * @param toNode The ending node of the edge.
-     * @param travelTime The time it takes to traverse the edge.
-     * @param length The length of the edge.
-     * @param speedLimit The speed limit when traversing the edge.
-     */
-    public Edge(Node fromNode, Node toNode, int travelTime, int length, int speedLimit) {
-        this.fromNode = fromNode;
-        this.toNode = toNode;
-        this.travelTime = travelTime;
-        this.length = length;
-        this.speedLimit = speedLimit;
-    }
-}
-
 /**
  *
  */
 public class DijkstrasAlgorithm {
-    // Array that stores all the Nodes based on their nodeNumber
-    protected Node[] nodes;
-    // Array that stores all the Nodes with inverted edges based on their nodeNumber
-    protected Node[] invertedNodes;
+    // The road network with the edges as they are given in the edge file.
+    // The graphs and the landmarks are replaced when the travel times are updated, see currentVersion.
+    protected volatile RoadGraph graph;
+    // The road network with all the edges inverted.
+    protected volatile RoadGraph invertedGraph;
+    // Twice the amount of travel time updates, odd while an update is being published.
+    private volatile long updateSequence = 0;
 
     protected int amountNodes;
-
-    //The map of preprocessed data functions much like a two-dimensional array. Used a map instead
-    // of int[][] since we want to store the node numbers of the landmarks in the array AND there
-    // will only be a few landmarks in total. Using a regular 2D array would result a very large
-    // outer array (int[500000][whatever]) where only a few of the elements are actually in use.
-    // This means a lot of unused space and more time spent iterating than necessary. Using a Map
-    // avoids this.
-    protected Map<Integer, int[]> landmarkToNodes = new HashMap<>();
-
-    protected Map<Integer, int[]> nodesToLandmark = new HashMap<>();
+    // The latitude coordinate of each node, read from the node file.
+    protected double[] latitude;
+    // The longitude coordinate of each node, read from the node file.
+    protected double[] longitude;
+
+    // The kind of priority queue the searches use.
+    protected QueueType queueType = QueueType.FOUR_ARY_HEAP;
+    // The state of the last search that was not given its own context.
+    protected SearchContext searchContext;
+    // The state of the backward half of the last bidirectional search that was not given its own contexts.
+    protected SearchContext backwardSearchContext;
+
+    // The preprocessed travel times between the landmarks and every node, used by ALT.
+    protected volatile Landmarks landmarks;
+    // The preprocessed landmark tables for the other cost metrics, with the cost instead of the travel time.
+    protected final Map<CostMetric, Landmarks> metricLandmarks = new HashMap<>();
+    // The points of interest, read once from the point of interest file or a snapshot.
+    protected PointOfInterestStore pointOfInterestStore;
+    // The file pointOfInterestStore was read from.
+    private String pointOfInterestFileName;
+    // Grid over the node coordinates, built when the nodes are read.
+    protected SpatialIndex spatialIndex;
+    // Unit vectors of the nodes for the A* lower bound, made the first time A* is used.
+    private GeometricEstimate geometricEstimate;
 
     Logger logger = Logger.getLogger(this.getClass().getName());
     /**
      * Read the file containing information on Nodes.
-     * This information is added to nodes
+     * The coordinates are stored until the edges are read.
      *
      * @param fileName The name of the file you want to read.
      */
@@ -105,22 +56,18 @@ public class DijkstrasAlgorithm {
             StringTokenizer stringTokenizer = new StringTokenizer(bufferedReader.readLine());
             // The amount of nodes is on the first line of the file.
             amountNodes = Integer.parseInt(stringTokenizer.nextToken());
-            // Set the size of nodes equal to the amount of nodes.
-            nodes = new Node[amountNodes];
-            invertedNodes = new Node[amountNodes];
+            // Set the size of the coordinate arrays equal to the amount of nodes.
+            latitude = new double[amountNodes];
+            longitude = new double[amountNodes];
             for(int i = 0; i < amountNodes; i++){
                 // Read the file line-for-line.
                 stringTokenizer = new StringTokenizer(bufferedReader.readLine());
                 // The format for a line in the Node-file is: nodeNumber latitude longitude.
                 int nodeNumber = Integer.parseInt(stringTokenizer.nextToken());
-                double latitude = Double.parseDouble(stringTokenizer.nextToken());
-                double longitude = Double.parseDouble(stringTokenizer.nextToken());
-
-                Node node = new Node(nodeNumber, latitude, longitude);
-                Node nodeInverted = new Node(nodeNumber, latitude, longitude);
-                nodes[node.nodeNumber] = node;
-                invertedNodes[nodeInverted.nodeNumber] = nodeInverted;
+                latitude[nodeNumber] = Double.parseDouble(stringTokenizer.nextToken());
+                longitude[nodeNumber] = Double.parseDouble(stringTokenizer.nextToken());
             }
+            spatialIndex = new SpatialIndex(latitude, longitude);
             logger.info("DONE READING: " + fileName);
         }catch (Exception e){
             e.printStackTrace();
@@ -129,132 +76,498 @@ public class DijkstrasAlgorithm {
 
     /**
      * Read the file containing information on Edges.
+     * The edges are stored in graph.
      *
      * @param fileName The name of the file you want to read.
      */
     public void readEdgeFile(String fileName){
+        graph = readEdges(fileName, false);
+    }
+
+    /**
+     * Read the file containing information on Edges.
+     * This is for inverting all the Edges, which are stored in invertedGraph.
+     *
+     * @param fileName The name of the file you want to read.
+     */
+    public void readEdgeFileInverted(String fileName){
+        invertedGraph = readEdges(fileName, true);
+    }
+
+    /**
+     * Read the node file and the edge file on all cores, and build both the graph and the
+     * inverted graph from one pass over the edge file. Quicker than calling readNodeFile,
+     * readEdgeFile and readEdgeFileInverted.
+     *
+     * @param nodeFileName The name of the node file.
+     * @param edgeFileName The name of the edge file.
+     */
+    public void loadGraph(String nodeFileName, String edgeFileName) {
+        GraphLoader loader = new GraphLoader(Runtime.getRuntime().availableProcessors());
+        try {
+            loader.readNodeFile(nodeFileName);
+            loader.readEdgeFile(edgeFileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        latitude = loader.latitude;
+        longitude = loader.longitude;
+        amountNodes = latitude.length;
+        graph = loader.graph;
+        invertedGraph = loader.invertedGraph;
+        spatialIndex = new SpatialIndex(latitude, longitude);
+    }
+
+    /**
+     * Write the graph, the inverted graph and the point of interest types that have been read
+     * to a binary snapshot file, which readSnapshot can open much quicker than the text files.
+     *
+     * @param fileName The name of the snapshot file.
+     * @throws IOException if there was a problem writing to file.
+     */
+    public void writeSnapshot(String fileName) throws IOException {
+        new GraphSnapshot(graph, invertedGraph,
+                pointOfInterestStore == null ? null : pointOfInterestStore.types).write(fileName);
+    }
+
+    /**
+     * Read a binary snapshot file written by writeSnapshot, instead of the node and edge files.
+     *
+     * @param fileName The name of the snapshot file.
+     */
+    public void readSnapshot(String fileName) {
+        try {
+            GraphSnapshot snapshot = GraphSnapshot.read(fileName);
+            graph = snapshot.graph;
+            invertedGraph = snapshot.invertedGraph;
+            pointOfInterestStore = snapshot.pointOfInterestTypes == null
+                    ? null : new PointOfInterestStore(snapshot.pointOfInterestTypes);
+            latitude = graph.latitude;
+            longitude = graph.longitude;
+            amountNodes = graph.amountNodes;
+            spatialIndex = new SpatialIndex(latitude, longitude);
+            logger.info("DONE READING: " + fileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Read the edges of a file into primitive arrays, and build a graph from them.
+     * The node file has to be read first.
+     *
+     * @param fileName The name of the file you want to read.
+     * @param inverted If the edges should be inverted.
+     * @return The graph containing the edges, or null if the file could not be read.
+     */
+    private RoadGraph readEdges(String fileName, boolean inverted) {
         try{
             // Using BufferedReader and StringTokenizer to read from file, should be the most optimal.
             BufferedReader bufferedReader = new BufferedReader(new FileReader(fileName));
             StringTokenizer stringTokenizer = new StringTokenizer(bufferedReader.readLine());
             // The amount of edges is on the first line of the file.
             int amountEdges = Integer.parseInt(stringTokenizer.nextToken());
+            int[] fromNode = new int[amountEdges];
+            int[] toNode = new int[amountEdges];
+            int[] travelTime = new int[amountEdges];
+            int[] length = new int[amountEdges];
+            int[] speedLimit = new int[amountEdges];
             for(int i = 0; i < amountEdges; i++){
                 // Read the file line-for-line.
                 stringTokenizer = new StringTokenizer(bufferedReader.readLine());
                 // The format for an Edge-file is: fromNode toNode travelTime length speedLimit
-                Node fromNode = nodes[Integer.parseInt(stringTokenizer.nextToken())];
-                Node toNode = nodes[Integer.parseInt(stringTokenizer.nextToken())];
-                int travelTime = Integer.parseInt(stringTokenizer.nextToken());
-                int length = Integer.parseInt(stringTokenizer.nextToken());
-                int speedLimit = Integer.parseInt(stringTokenizer.nextToken());
-
-                Edge edge = new Edge(fromNode, toNode, travelTime, length, speedLimit);
-                nodes[edge.fromNode.nodeNumber].edges.add(edge);
+                int from = Integer.parseInt(stringTokenizer.nextToken());
+                int to = Integer.parseInt(stringTokenizer.nextToken());
+                // Edge has toNode and fromNode swapped (to invert the table)
+                fromNode[i] = inverted ? to : from;
+                toNode[i] = inverted ? from : to;
+                travelTime[i] = Integer.parseInt(stringTokenizer.nextToken());
+                length[i] = Integer.parseInt(stringTokenizer.nextToken());
+                speedLimit[i] = Integer.parseInt(stringTokenizer.nextToken());
             }
             logger.info("DONE READING: " + fileName);
+            return RoadGraph.fromEdgeList(latitude, longitude, amountEdges, fromNode, toNode,
+                    travelTime, length, speedLimit);
         }catch (Exception e){
             e.printStackTrace();
         }
+        return null;
     }
 
     /**
-     * Read the file containing information on Edges.
-     * This is for inverting all the Edges.
+     * Open a binary landmark file made by PreprocessedDijkstra.
+     * The file is memory mapped, so the landmarks can be used right away.
      *
      * @param fileName The name of the file you want to read.
      */
-    public void readEdgeFileInverted(String fileName){
-        try{
-            // Using BufferedReader and StringTokenizer to read from file, should be the most optimal.
-            BufferedReader bufferedReader = new BufferedReader(new FileReader(fileName));
-            StringTokenizer stringTokenizer = new StringTokenizer(bufferedReader.readLine());
-            // The amount of edges is on the first line of the file.
-            int amountEdges = Integer.parseInt(stringTokenizer.nextToken());
-            for(int i = 0; i < amountEdges; i++){
-                // Read the file line-for-line.
-                stringTokenizer = new StringTokenizer(bufferedReader.readLine());
-                // The format for an Edge-file is: fromNode toNode travelTime length speedLimit
-                Node fromNode = invertedNodes[Integer.parseInt(stringTokenizer.nextToken())];
-                Node toNode = invertedNodes[Integer.parseInt(stringTokenizer.nextToken())];
-                int travelTime = Integer.parseInt(stringTokenizer.nextToken());
-                int length = Integer.parseInt(stringTokenizer.nextToken());
-                int speedLimit = Integer.parseInt(stringTokenizer.nextToken());
+    public void readLandmarkFile(String fileName) {
+        readLandmarkFile(fileName, CostMetric.TRAVEL_TIME);
+    }
 
-                // Edge has toNode and fromNode swapped (to invert the table)
-                Edge edge = new Edge(toNode, fromNode, travelTime, length, speedLimit);
-                invertedNodes[edge.fromNode.nodeNumber].edges.add(edge);
-            }
+    /**
+     * Open a binary landmark file made by PreprocessedDijkstra for a cost metric.
+     * The file is memory mapped, so the landmarks can be used right away.
+     *
+     * @param fileName The name of the file you want to read.
+     * @param metric The cost metric the file was preprocessed with.
+     */
+    public void readLandmarkFile(String fileName, CostMetric metric) {
+        try {
+            setLandmarks(metric, Landmarks.map(fileName));
             logger.info("DONE READING: " + fileName);
-        } catch (Exception e){
+        } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /**
+     * Returns the landmarks of a cost metric.
+     *
+     * @param metric The cost metric.
+     * @return The landmarks, or null if none have been read or preprocessed for the metric.
+     */
+    protected Landmarks landmarks(CostMetric metric) {
+        if (metric == CostMetric.TRAVEL_TIME) {
+            return landmarks;
+        }
+        synchronized (metricLandmarks) {
+            return metricLandmarks.get(metric);
+        }
+    }
+
+    /**
+     * Sets the landmarks of a cost metric.
+     *
+     * @param metric The cost metric.
+     * @param metricLandmarks The landmarks, preprocessed with the metric.
+     */
+    protected void setLandmarks(CostMetric metric, Landmarks metricLandmarks) {
+        if (metric == CostMetric.TRAVEL_TIME) {
+            landmarks = metricLandmarks;
+            return;
+        }
+        synchronized (this.metricLandmarks) {
+            this.metricLandmarks.put(metric, metricLandmarks);
+        }
+    }
+
+    /**
+     * Returns the graphs and the landmarks of a cost metric as they are now.
+     * A search that reads them through this never sees half of an update, so it gives the
+     * same answer as if it ran entirely before or entirely after the update.
+     *
+     * @param metric The cost metric whose landmarks are wanted.
+     * @return The current version.
+     */
+    protected GraphVersion currentVersion(CostMetric metric) {
+        // The update sequence is read before and after, and if an update was published in
+        // between, the fields are read again.
+        while (true) {
+            long sequence = updateSequence;
+            RoadGraph currentGraph = graph;
+            RoadGraph currentInvertedGraph = invertedGraph;
+            Landmarks currentLandmarks = landmarks(metric);
+            if ((sequence & 1) == 0 && sequence == updateSequence) {
+                return new GraphVersion(sequence / 2, currentGraph, currentInvertedGraph, currentLandmarks);
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Returns the number of the current version of the graph, the amount of travel time updates.
+     *
+     * @return The version number.
+     */
+    public long graphVersion() {
+        return updateSequence / 2;
+    }
+
+    /**
+     * Gives edges new travel times, for example from traffic incidents.
+     * <p>
+     * The graphs are never changed. New graphs share every array with the old ones except the
+     * travel times, which are copied and updated, and they replace the old graphs all at once
+     * when the whole batch is done. Searches that are running keep using the old graphs.
+     * <p>
+     * The landmark tables of every metric are kept valid: a higher cost never makes an estimate
+     * too high, and the travel times in the tables that get lower are repaired, see
+     * Landmarks.repair. The repaired landmarks are also valid for the old graphs, so they are
+     * published before the graphs.
+     *
+     * @param updates The new travel times.
+     * @return The number of the new version of the graph.
+     * @throws IllegalArgumentException if there is no edge between two nodes in the batch.
+     * @throws IllegalStateException if landmarks have to be repaired and the inverted graph has not been read.
+     */
+    public synchronized long updateTravelTimes(EdgeWeightUpdates updates) {
+        RoadGraph oldGraph = graph;
+        RoadGraph oldInvertedGraph = invertedGraph;
+        int[] travelTime = oldGraph.travelTime.clone();
+        int[] invertedTravelTime = oldInvertedGraph == null ? null : oldInvertedGraph.travelTime.clone();
+        for (int i = 0; i < updates.amount; i++) {
+            int from = updates.fromNode[i];
+            int to = updates.toNode[i];
+            if (!setTravelTime(oldGraph, travelTime, from, to, updates.travelTime[i])) {
+                throw new IllegalArgumentException("There is no edge from " + from + " to " + to);
+            }
+            if (oldInvertedGraph != null) {
+                setTravelTime(oldInvertedGraph, invertedTravelTime, to, from, updates.travelTime[i]);
+            }
+        }
+        RoadGraph newGraph = new RoadGraph(oldGraph.latitude, oldGraph.longitude, oldGraph.edgeStart,
+                oldGraph.edgeTarget, travelTime, oldGraph.length, oldGraph.speedLimit);
+        RoadGraph newInvertedGraph = oldInvertedGraph == null ? null : new RoadGraph(oldInvertedGraph.latitude,
+                oldInvertedGraph.longitude, oldInvertedGraph.edgeStart, oldInvertedGraph.edgeTarget,
+                invertedTravelTime, oldInvertedGraph.length, oldInvertedGraph.speedLimit);
+
+        // The landmarks of every metric, repaired for the new graphs.
+        Map<CostMetric, Landmarks> repairedLandmarks = new HashMap<>();
+        if (landmarks != null) {
+            repairedLandmarks.put(CostMetric.TRAVEL_TIME, landmarks);
+        }
+        synchronized (metricLandmarks) {
+            repairedLandmarks.putAll(metricLandmarks);
+        }
+        for (Map.Entry<CostMetric, Landmarks> entry : repairedLandmarks.entrySet()) {
+            entry.setValue(repairLandmarks(entry.getValue(), entry.getKey(), updates, oldGraph, newGraph, newInvertedGraph));
+        }
+
+        updateSequence++;
+        for (Map.Entry<CostMetric, Landmarks> entry : repairedLandmarks.entrySet()) {
+            setLandmarks(entry.getKey(), entry.getValue());
+        }
+        invertedGraph = newInvertedGraph;
+        graph = newGraph;
+        updateSequence++;
+        return graphVersion();
+    }
+
+    /**
+     * Sets the travel time of every edge from one node to another in a copy of the travel times.
+     *
+     * @param graph The graph.
+     * @param travelTime The copy of the travel times of the graph.
+     * @param from The node the edge goes from.
+     * @param to The node the edge goes to.
+     * @param newTravelTime The new travel time.
+     * @return true if there was an edge.
+     */
+    private static boolean setTravelTime(RoadGraph graph, int[] travelTime, int from, int to, int newTravelTime) {
+        boolean found = false;
+        for (int edge = graph.edgeStart[from]; edge < graph.edgeStart[from + 1]; edge++) {
+            if (graph.edgeTarget[edge] == to) {
+                travelTime[edge] = newTravelTime;
+                found = true;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Repairs the landmarks of a metric after the travel times of some edges have changed.
+     *
+     * @param metricLandmarks The landmarks, valid for the old graph.
+     * @param metric The cost metric of the landmarks.
+     * @param updates The new travel times.
+     * @param oldGraph The graph before the update.
+     * @param newGraph The graph after the update.
+     * @param newInvertedGraph The inverted graph after the update, can be null if no cost gets lower.
+     * @return Landmarks valid for both the old and the new graph.
+     */
+    private Landmarks repairLandmarks(Landmarks metricLandmarks, CostMetric metric, EdgeWeightUpdates updates,
+                                      RoadGraph oldGraph, RoadGraph newGraph, RoadGraph newInvertedGraph) {
+        int[] oldWeights = oldGraph.weights(metric);
+        int[] newWeights = newGraph.weights(metric);
+        // The edges that got a lower cost in the metric.
+        int[] fromNode = new int[updates.amount];
+        int[] toNode = new int[updates.amount];
+        int[] newCost = new int[updates.amount];
+        int amountDecreased = 0;
+        for (int i = 0; i < updates.amount; i++) {
+            int from = updates.fromNode[i];
+            for (int edge = newGraph.edgeStart[from]; edge < newGraph.edgeStart[from + 1]; edge++) {
+                if (newGraph.edgeTarget[edge] == updates.toNode[i] && newWeights[edge] < oldWeights[edge]) {
+                    if (amountDecreased == fromNode.length) {
+                        fromNode = Arrays.copyOf(fromNode, amountDecreased * 2);
+                        toNode = Arrays.copyOf(toNode, amountDecreased * 2);
+                        newCost = Arrays.copyOf(newCost, amountDecreased * 2);
+                    }
+                    fromNode[amountDecreased] = from;
+                    toNode[amountDecreased] = updates.toNode[i];
+                    newCost[amountDecreased++] = newWeights[edge];
+                }
+            }
+        }
+        if (amountDecreased == 0) {
+            return metricLandmarks;
+        }
+        if (newInvertedGraph == null) {
+            throw new IllegalStateException("The inverted graph is needed to repair the landmarks for " + metric);
+        }
+        return metricLandmarks.repair(newGraph, newInvertedGraph, newWeights, newInvertedGraph.weights(metric),
+                amountDecreased, fromNode, toNode, newCost, queueType.create(newGraph.amountNodes));
+    }
+
     /**
      * Read the file containing information on
-     * the points of interests. Get a Map that contains
+     * the points of interests. Get a Set that contains
      * every point of interest of a specific type.
+     * The file is only read the first time, later calls use the point of interest store.
      *
      * @param fileName The name of the file you want to read.
      * @param type Integer representing the type of node you want.
-     * @return Map containing every point of a specific type.
+     * @return Set containing the node numbers of the nodes that have the type.
      */
-    public Map<Integer, Node> readPointOfInterestFile(String fileName, int type) {
-        // Map that contains the node of the wanted type
-        Map<Integer, Node> nodeMap = new HashMap<>();
+    public Set<Integer> readPointOfInterestFile(String fileName, int type) {
+        if (pointOfInterestStore == null || !fileName.equals(pointOfInterestFileName)) {
+            readPointOfInterestStore(fileName);
+        }
+        return pointOfInterestStore == null ? new HashSet<>() : pointOfInterestStore.nodesOfType(type);
+    }
+
+    /**
+     * Read the point of interest file into pointOfInterestStore, so the searches can check
+     * the type of a node without reading the file again. The node file has to be read first.
+     *
+     * @param fileName The name of the file you want to read.
+     */
+    public void readPointOfInterestStore(String fileName) {
         try {
-            // Using BufferedReader and StringTokenizer to read from file, should be the most optimal.
-            BufferedReader bufferedReader = new BufferedReader(new FileReader(fileName));
-            StringTokenizer stringTokenizer = new StringTokenizer(bufferedReader.readLine());
-            // The amount of edges is on the first line of the file.
-            int Interessepekt = Integer.parseInt(stringTokenizer.nextToken());
-            for (int i = 0; i < Interessepekt; i++) {
-                // Read the file line-for-line.
-                stringTokenizer = new StringTokenizer(bufferedReader.readLine());
-                // The format for an Edge-file is: fromNode toNode travelTime length speedLimit
-                int nodeNumber = Integer.parseInt(stringTokenizer.nextToken());
-                int nodeType = Integer.parseInt(stringTokenizer.nextToken());
-                String name = stringTokenizer.nextToken();
-                if ((nodeType & type) == type) {
-                    nodeMap.put(nodeNumber, nodes[nodeNumber]);
-                }
-            }
-        } catch (Exception e) {
+            pointOfInterestStore = PointOfInterestStore.read(fileName, amountNodes);
+            pointOfInterestFileName = fileName;
+            logger.info("DONE READING: " + fileName);
+        } catch (IOException e) {
             e.printStackTrace();
         }
-        return nodeMap;
     }
 
+    /**
+     * Find the node closest to a GPS position, so a search can start or end there.
+     * The node file has to be read first.
+     *
+     * @param latitude The latitude of the position.
+     * @param longitude The longitude of the position.
+     * @return The node number of the closest node, -1 if there are no nodes.
+     */
+    public int nearestNode(double latitude, double longitude) {
+        return spatialIndex.nearest(latitude, longitude);
+    }
+
+    /**
+     * Find the nodes closest to a GPS position. The node file has to be read first.
+     *
+     * @param latitude The latitude of the position.
+     * @param longitude The longitude of the position.
+     * @param amount The amount of nodes to find.
+     * @return The node numbers of the closest nodes, closest first.
+     */
+    public int[] nearestNodes(double latitude, double longitude, int amount) {
+        return spatialIndex.nearest(latitude, longitude, amount);
+    }
+
+    /**
+     * Returns the search context used by the searches that are not given one.
+     * A new context is made if the graph has a different amount of nodes than the last one.
+     *
+     * @param amountNodes The amount of nodes in the graph that will be searched through.
+     * @return The search context.
+     */
+    protected SearchContext searchContext(int amountNodes) {
+        if (searchContext == null || searchContext.amountNodes != amountNodes) {
+            searchContext = newSearchContext(amountNodes);
+        }
+        return searchContext;
+    }
+
+    /**
+     * Returns the search context used by the backward half of the bidirectional searches
+     * that are not given one.
+     *
+     * @param amountNodes The amount of nodes in the graph that will be searched through.
+     * @return The search context.
+     */
+    protected SearchContext backwardSearchContext(int amountNodes) {
+        if (backwardSearchContext == null || backwardSearchContext.amountNodes != amountNodes) {
+            backwardSearchContext = newSearchContext(amountNodes);
+        }
+        return backwardSearchContext;
+    }
+
+    /**
+     * Makes a new search context using the queue type of this instance.
+     * Each thread searching the same graph needs its own context.
+     *
+     * @param amountNodes The amount of nodes in the graph that will be searched through.
+     * @return The new search context.
+     */
+    public SearchContext newSearchContext(int amountNodes) {
+        return new SearchContext(amountNodes, queueType);
+    }
+
+    /**
+     * Uses Dijkstra´s algorithm to find the shortest path from a start node to an end node,
+     * records the time it took in SearchMetrics, and logs it at level FINE.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param graph           The graph that will be searched through.
+     * @return The shortest travel time from the start node to the end node in centiseconds. Returns -1 if there is no path.
+     */
+    public int dijkstra(int startNodeNumber, int endNodeNumber, RoadGraph graph) {
+        SearchContext context = searchContext(graph.amountNodes);
+        long startTime = System.nanoTime();
+        int travelTime = dijkstra(startNodeNumber, endNodeNumber, graph, context);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("Dijkstra", context, latency);
+        logger.fine(() -> "Dijkstra's Algorithm from Node: " + startNodeNumber + " to Node: " + endNodeNumber + " in "
+                + latency / 1e6 + " ms, processed nodes: " + context.nodesPicked);
+        return travelTime;
+    }
 
     /**
      * Uses Dijkstra´s algorithm to find the shortest path from a start node to an end node.
+     * The graph is not changed, so any amount of searches can run on it at the same time
+     * as long as each of them has its own context.
      *
      * @param startNodeNumber The starting node´s node number.
      * @param endNodeNumber   The ending node´s node number.
-     * @param nodeArray       Array of nodes that will be searched through.
+     * @param graph           The graph that will be searched through.
+     * @param context         The context the state of the search is stored in.
      * @return The shortest travel time from the start node to the end node in centiseconds. Returns -1 if there is no path.
      */
-    public int dijkstra(int startNodeNumber, int endNodeNumber, Node[] nodeArray) {
-        Node startNode = nodeArray[startNodeNumber];
-        Node endNode = nodeArray[endNodeNumber];
+    public int dijkstra(int startNodeNumber, int endNodeNumber, RoadGraph graph, SearchContext context) {
+        return dijkstra(startNodeNumber, endNodeNumber, graph, CostMetric.TRAVEL_TIME, context);
+    }
 
+    /**
+     * Uses Dijkstra´s algorithm to find the path from a start node to an end node with the
+     * lowest cost in a metric, for example the shortest distance.
+     * The travel times stored in the context are then the costs.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param graph           The graph that will be searched through.
+     * @param metric          The cost metric to minimize.
+     * @param context         The context the state of the search is stored in.
+     * @return The lowest cost from the start node to the end node. Returns -1 if there is no path.
+     */
+    public int dijkstra(int startNodeNumber, int endNodeNumber, RoadGraph graph, CostMetric metric,
+                        SearchContext context) {
+        int[] weights = graph.weights(metric);
         // Initially, all nodes have their travel time to the start node set to
         // Integer.MAX_VALUE to represent "infinity",
         // except for the startNode which is set to 0.
-        startNode.travelTimeFromStartNode = 0;
+        context.reset();
+        context.update(startNodeNumber, 0, -1);
 
         // The priority queue is used to select the node with the shortest travel time
-        // to the starting node for each iteration. The priority queue is initialized
-        // with a Comparator that prioritizes nodes based on their travel time to the starting node
+        // to the starting node for each iteration. Nodes are prioritized based on their
+        // travel time to the starting node.
         // The start node is added to the priority queue initially (since we start searching from this node)
-        PriorityQueue<Node> priorityQueue = new PriorityQueue<>(comparingInt(node -> node.travelTimeFromStartNode));
-        priorityQueue.add(startNode);
-
-        // Counter for the number of nodes picked from the priority queue
-        int nodesPicked = 0;
-        // Start time of Dijkstra´s algorithm
-        long startTime = System.currentTimeMillis();
+        NodePriorityQueue priorityQueue = context.priorityQueue;
+        priorityQueue.addOrDecrease(startNodeNumber, 0);
 
         // Dijkstra's algorithm.
         // For each iteration it selects the node with the shortest
@@ -267,44 +580,67 @@ public class DijkstrasAlgorithm {
         // OR if the end node has been removed from the queue
         // since we do not need to search further than the end node.
         while (!priorityQueue.isEmpty()) {
-            Node currentNode = priorityQueue.poll();
-            nodesPicked++; // Increment the counter for nodes picked from queue
+            int currentNode = priorityQueue.poll();
+            context.nodesPicked++; // Increment the counter for nodes picked from queue
 
             // Check if the current node is the end node
             // meaning we can stop processing.
             // If we do not do this, then every node will be checked (unnecessary overhead).
-            if (currentNode == endNode) {
+            if (currentNode == endNodeNumber) {
                 break;
             }
 
-            for (Edge edge : currentNode.edges) {
-                int newTravelTime = currentNode.travelTimeFromStartNode + edge.travelTime;
+            int currentTravelTime = context.travelTime(currentNode);
+            if (SearchMetrics.ENABLED) {
+                context.edgesRelaxed += graph.edgeStart[currentNode + 1] - graph.edgeStart[currentNode];
+            }
+            for (int edge = graph.edgeStart[currentNode]; edge < graph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = graph.edgeTarget[edge];
+                int newTravelTime = currentTravelTime + weights[edge];
                 // Update the travel time if a quicker path is found.
-                // Here we also bypass the problem with PriorityQueue
-                // not allowing us to directly change priorities, by
-                // re-adding the node with the new priority (travel time from starting node)
-                // after having it removed (if it already is in the queue)
-                if (newTravelTime < edge.toNode.travelTimeFromStartNode) {
-                    priorityQueue.remove(edge.toNode);
-                    edge.toNode.travelTimeFromStartNode = newTravelTime;
-                    edge.toNode.previousNode = currentNode;
-                    priorityQueue.add(edge.toNode);
+                // The priority queue knows where the node is, so lowering
+                // its priority does not require searching through the queue.
+                if (newTravelTime < context.travelTime(toNode)) {
+                    if (SearchMetrics.ENABLED && context.travelTime(toNode) != Integer.MAX_VALUE) {
+                        context.decreaseKeys++;
+                    }
+                    context.update(toNode, newTravelTime, currentNode, edge);
+                    priorityQueue.addOrDecrease(toNode, newTravelTime);
+                    if (SearchMetrics.ENABLED) {
+                        context.countQueueUpdate();
+                    }
                 }
             }
         }
-        // Print out time it took and number of nodes picked out of the queue
-        long endTime = System.currentTimeMillis();
-        long executionTime = (endTime - startTime);
-        System.out.println("Dijkstra's Algorithm from Node: " + startNodeNumber + " to Node: " + endNodeNumber);
-        System.out.println("Execution time in milliseconds: " + executionTime);
-        System.out.println("Amount of processed nodes: " + nodesPicked);
 
         // Check if the travel time to the endNode is still Integer.MAX_VALUE
         // This means it is not possible to reach the endNode from the startNode
-        if (endNode.travelTimeFromStartNode == Integer.MAX_VALUE) {
+        if (context.travelTime(endNodeNumber) == Integer.MAX_VALUE) {
             return -1;
         }
-        return endNode.travelTimeFromStartNode;
+        return context.travelTime(endNodeNumber);
+    }
+
+    /**
+     * Uses Dijkstra´s algorithm to find the points of interest
+     * that are the closest to the starting node, records the time it took in SearchMetrics,
+     * and logs it at level FINE.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param graph           The graph that will be searched through
+     * @param pointsOfInterest               Set containing the node numbers with the wanted point of interest
+     * @param amountOfPointsOfInterests      Integer representing how many points of interest you want to find
+     * @return List of the node numbers of the points of interests that are closest to the starting node, the amount is specified.
+     */
+    public List<Integer> dijkstraFindPointOfInterest(int startNodeNumber, RoadGraph graph, Set<Integer> pointsOfInterest, int amountOfPointsOfInterests) {
+        SearchContext context = searchContext(graph.amountNodes);
+        long startTime = System.nanoTime();
+        List<Integer> nodesOfInterests = dijkstraFindPointOfInterest(startNodeNumber, graph, pointsOfInterest, amountOfPointsOfInterests, context);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("Dijkstra points of interest", context, latency);
+        logger.fine(() -> "Dijkstra's Algorithm from Node: " + startNodeNumber + " to surrounding points of interest in "
+                + latency / 1e6 + " ms, processed nodes: " + context.nodesPicked);
+        return nodesOfInterests;
     }
 
     /**
@@ -312,431 +648,684 @@ public class DijkstrasAlgorithm {
      * that are the closest to the starting node.
      *
      * @param startNodeNumber The starting node´s node number.
-     * @param nodeArray       The array of nodes that will be searched through
-     * @param nodeMapPointOfInterest         Map containg the nodes with the wanted point of interest
+     * @param graph           The graph that will be searched through
+     * @param pointsOfInterest               Set containing the node numbers with the wanted point of interest
      * @param amountOfPointsOfInterests      Integer representing how many points of interest you want to find
-     * @return List of the points of interests, as Nodes, that are closest to the starting node, the amount is specified.
+     * @param context         The context the state of the search is stored in.
+     * @return List of the node numbers of the points of interests that are closest to the starting node, the amount is specified.
      */
-    public List<Node> dijkstraFindPointOfInterest(int startNodeNumber, Node[] nodeArray, Map<Integer, Node> nodeMapPointOfInterest, int amountOfPointsOfInterests) {
-        Node startNode = nodeArray[startNodeNumber];
-        Node endNode = nodeArray[nodeArray.length - 1];
-        List<Node> nodesOfInterests = new ArrayList<>();
+    public List<Integer> dijkstraFindPointOfInterest(int startNodeNumber, RoadGraph graph, Set<Integer> pointsOfInterest, int amountOfPointsOfInterests, SearchContext context) {
+        return findPointsOfInterest(startNodeNumber, graph, pointsOfInterest::contains, amountOfPointsOfInterests, context);
+    }
 
-        // Initially, all nodes have their travel time to the start node set to
-        // Integer.MAX_VALUE to represent "infinity",
-        // except for the startNode which is set to 0.
-        startNode.travelTimeFromStartNode = 0;
+    /**
+     * Uses Dijkstra´s algorithm to find the points of interest of a type
+     * that are the closest to the starting node, records the time it took in SearchMetrics,
+     * and logs it at level FINE.
+     * The point of interest store must be read first.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param graph           The graph that will be searched through
+     * @param type            The type bitmask of the wanted points of interest
+     * @param amountOfPointsOfInterests      Integer representing how many points of interest you want to find
+     * @return List of the node numbers of the points of interests that are closest to the starting node, the amount is specified.
+     */
+    public List<Integer> dijkstraFindPointOfInterest(int startNodeNumber, RoadGraph graph, int type, int amountOfPointsOfInterests) {
+        SearchContext context = searchContext(graph.amountNodes);
+        long startTime = System.nanoTime();
+        List<Integer> nodesOfInterests = dijkstraFindPointOfInterest(startNodeNumber, graph, type, amountOfPointsOfInterests, context);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("Dijkstra points of interest", context, latency);
+        logger.fine(() -> "Dijkstra's Algorithm from Node: " + startNodeNumber + " to surrounding points of interest in "
+                + latency / 1e6 + " ms, processed nodes: " + context.nodesPicked);
+        return nodesOfInterests;
+    }
 
-        // The priority queue is used to select the node with the shortest travel time
-        // to the starting node for each iteration. The priority queue is initialized
-        // with a Comparator that prioritizes nodes based on their travel time to the starting node
-        // The start node is added to the priority queue initially (since we start searching from this node)
-        PriorityQueue<Node> priorityQueue = new PriorityQueue<>(Comparator.comparingInt(node -> node.travelTimeFromStartNode));
-        priorityQueue.add(startNode);
+    /**
+     * Uses Dijkstra´s algorithm to find the points of interest of a type
+     * that are the closest to the starting node. The type of a node is checked in the
+     * point of interest store, so no node numbers are boxed during the search.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param graph           The graph that will be searched through
+     * @param type            The type bitmask of the wanted points of interest
+     * @param amountOfPointsOfInterests      Integer representing how many points of interest you want to find
+     * @param context         The context the state of the search is stored in.
+     * @return List of the node numbers of the points of interests that are closest to the starting node, the amount is specified.
+     */
+    public List<Integer> dijkstraFindPointOfInterest(int startNodeNumber, RoadGraph graph, int type, int amountOfPointsOfInterests, SearchContext context) {
+        PointOfInterestStore store = pointOfInterestStore;
+        return findPointsOfInterest(startNodeNumber, graph, node -> store.hasType(node, type), amountOfPointsOfInterests, context);
+    }
 
-        // Counter for the number of nodes picked from the priority queue
-        int nodesPicked = 0;
-        // Start time of Dijkstra´s algorithm
-        long startTime = System.currentTimeMillis();
+    /**
+     * Uses Dijkstra´s algorithm to find the points of interest
+     * that are the closest to the starting node.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param graph           The graph that will be searched through
+     * @param isPointOfInterest Checks if a node is one of the wanted points of interest
+     * @param amountOfPointsOfInterests      Integer representing how many points of interest you want to find
+     * @param context         The context the state of the search is stored in.
+     * @return List of the node numbers of the points of interests that are closest to the starting node, the amount is specified.
+     */
+    private List<Integer> findPointsOfInterest(int startNodeNumber, RoadGraph graph, IntPredicate isPointOfInterest, int amountOfPointsOfInterests, SearchContext context) {
+        List<Integer> nodesOfInterests = new ArrayList<>();
+        findPointsOfInterest(startNodeNumber, graph, new IntPredicate[]{isPointOfInterest}, amountOfPointsOfInterests,
+                Integer.MAX_VALUE, (node, category, travelTime) -> nodesOfInterests.add(node), context);
+        return nodesOfInterests;
+    }
 
-        // Dijkstra's algorithm.
-        // For each iteration it selects the node with the shortest
-        // travel time from the starting node and checks its edges.
-        // For each edge, if the new travel time is shorter than any
-        // of the other edges, then the Node that the edge leads to
-        // has its travel time from start node updated, previous node
-        // updated, and it is added to the priority queue.
-        // This will repeat until the PriorityQueue is empty (meaning we got no more Nodes to explore)
-        // OR if the end node has been removed from the queue
-        // since we do not need to search further than the end node.
-        while (!priorityQueue.isEmpty()) {
-            Node currentNode = priorityQueue.poll();
-            nodesPicked++; // Increment the counter for nodes picked from queue
+    /**
+     * Uses Dijkstra´s algorithm to find the closest points of interest of several types in one
+     * search, and gives them to the listener as soon as they are picked from the queue.
+     * The search stops as soon as it is known that no more points of interest are wanted:
+     * when every type has the wanted amount, when the next node is further away than the
+     * travel time budget, or when the listener returns false.
+     * The point of interest store must be read first.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param graph           The graph that will be searched through.
+     * @param types           The type bitmask of each category of points of interest.
+     * @param amountPerType   How many points of interest to find of each type, 0 for no limit.
+     * @param maxTravelTime   The longest travel time in centiseconds to search, Integer.MAX_VALUE for no limit.
+     * @param listener        Gets each point of interest that is found, closest first.
+     * @param context         The context the state of the search is stored in.
+     */
+    public void findPointsOfInterest(int startNodeNumber, RoadGraph graph, int[] types, int amountPerType,
+                                     int maxTravelTime, PointOfInterestListener listener, SearchContext context) {
+        PointOfInterestStore store = pointOfInterestStore;
+        IntPredicate[] categories = new IntPredicate[types.length];
+        for (int i = 0; i < types.length; i++) {
+            int type = types[i];
+            categories[i] = node -> store.hasType(node, type);
+        }
+        findPointsOfInterest(startNodeNumber, graph, categories, amountPerType, maxTravelTime, listener, context);
+    }
 
-            // Check if the current node is the end node
-            // meaning we can stop processing.
-            // If we do not do this, then every node will be checked (unnecessary overhead).
-            if (currentNode == endNode) {
+    /**
+     * Uses Dijkstra´s algorithm to find the closest points of interest of several categories in
+     * one search. See the public method with the same name.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param graph           The graph that will be searched through.
+     * @param categories      Checks if a node is a point of interest in each category.
+     * @param amountPerType   How many points of interest to find in each category, 0 for no limit.
+     * @param maxTravelTime   The longest travel time in centiseconds to search.
+     * @param listener        Gets each point of interest that is found, closest first.
+     * @param context         The context the state of the search is stored in.
+     */
+    private void findPointsOfInterest(int startNodeNumber, RoadGraph graph, IntPredicate[] categories, int amountPerType,
+                                      int maxTravelTime, PointOfInterestListener listener, SearchContext context) {
+        // The amount found in each category, and the amount of categories that still want more.
+        int[] amountFound = new int[categories.length];
+        int categoriesLeft = categories.length;
+
+        context.reset();
+        context.update(startNodeNumber, 0, -1);
+        NodePriorityQueue priorityQueue = context.priorityQueue;
+        priorityQueue.addOrDecrease(startNodeNumber, 0);
+
+        // The nodes are picked in the order of their travel time, so the first node over the
+        // budget means every node left is over it too.
+        while (!priorityQueue.isEmpty() && categoriesLeft > 0) {
+            int currentNode = priorityQueue.poll();
+            int currentTravelTime = context.travelTime(currentNode);
+            if (currentTravelTime > maxTravelTime) {
                 break;
             }
+            context.nodesPicked++;
 
-            if (nodeMapPointOfInterest.containsKey(currentNode.nodeNumber)) {
-                nodesOfInterests.add(currentNode);
-                if(nodesOfInterests.size() == amountOfPointsOfInterests) {
-                    break;
+            for (int category = 0; category < categories.length; category++) {
+                if (amountPerType > 0 && amountFound[category] == amountPerType) {
+                    continue;
+                }
+                if (!categories[category].test(currentNode)) {
+                    continue;
                 }
+                if (!listener.found(currentNode, category, currentTravelTime)) {
+                    return;
+                }
+                if (++amountFound[category] == amountPerType) {
+                    categoriesLeft--;
+                }
+            }
+            if (categoriesLeft == 0) {
+                break;
             }
 
-            for (Edge edge : currentNode.edges) {
-                int newTravelTime = currentNode.travelTimeFromStartNode + edge.travelTime;
-                // Update the travel time if a quicker path is found.
-                // Here we also bypass the problem with PriorityQueue
-                // not allowing us to directly change priorities, by
-                // re-adding the node with the new priority (travel time from starting node)
-                // after having it removed (if it already is in the queue)
-                if (newTravelTime < edge.toNode.travelTimeFromStartNode) {
-                    priorityQueue.remove(edge.toNode);
-                    edge.toNode.travelTimeFromStartNode = newTravelTime;
-                    edge.toNode.previousNode = currentNode;
-                    priorityQueue.add(edge.toNode);
+            if (SearchMetrics.ENABLED) {
+                context.edgesRelaxed += graph.edgeStart[currentNode + 1] - graph.edgeStart[currentNode];
+            }
+            for (int edge = graph.edgeStart[currentNode]; edge < graph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = graph.edgeTarget[edge];
+                int newTravelTime = currentTravelTime + graph.travelTime[edge];
+                if (newTravelTime < context.travelTime(toNode)) {
+                    if (SearchMetrics.ENABLED && context.travelTime(toNode) != Integer.MAX_VALUE) {
+                        context.decreaseKeys++;
+                    }
+                    context.update(toNode, newTravelTime, currentNode, edge);
+                    priorityQueue.addOrDecrease(toNode, newTravelTime);
+                    if (SearchMetrics.ENABLED) {
+                        context.countQueueUpdate();
+                    }
                 }
             }
         }
-        // Print out time it took and number of nodes picked out of the queue
-        long endTime = System.currentTimeMillis();
-        long executionTime = (endTime - startTime);
-        System.out.println("Dijkstra's Algorithm from Node: " + startNodeNumber + " to surrounding points of interest");
-        System.out.println("Execution time in milliseconds: " + executionTime);
-        System.out.println("Amount of processed nodes: " + nodesPicked);
-
-        return nodesOfInterests;
     }
 
     /**
-     * Make a list containing the nodes in the shortest path found from Dijkstra´s algorithm.
+     * Finds every node that can be reached from the start node within a travel time budget,
+     * records the time it took in SearchMetrics, and logs it at level FINE.
      *
-     * @param endNodeNumber the end node´s node number used in Dijkstra´s algorithm
-     * @return List of the nodes in the shortest path
+     * @param startNodeNumber The starting node´s node number.
+     * @param graph           The graph that will be searched through.
+     * @param maxTravelTime   The travel time budget in centiseconds.
+     * @return The reachable nodes and their travel times.
      */
-    public List<Node> getPath(int endNodeNumber, Node[] nodeArray) {
-        List<Node> path = new ArrayList<>();
-        Node currentNode = nodeArray[endNodeNumber];
-        // We retrace the shortest path found from Dijkstra backwards
-        // When the currentNode is null means we have reach the startNode
-        // since it does not have a previous node.
-        while (currentNode != null) {
-            path.add(currentNode);
-            currentNode = currentNode.previousNode;
-        }
-        // We then use Collections.reverse to get the correct order of the path.
-        Collections.reverse(path);
-        return path;
-    }
-
-
-    public static void main(String[] args) {
-        DijkstrasAlgorithm dijkstras = new DijkstrasAlgorithm();
-
-        String nodeFile = "noder.txt";
-        dijkstras.readNodeFile(nodeFile);
-
-        String edgeFile = "kanter.txt";
-        dijkstras.readEdgeFile(edgeFile);
-
-        int startNode = 5009309 ;
-        int endNode = 999080;
-        int travelTime = dijkstras.dijkstra(startNode, endNode, dijkstras.nodes) / 100; // Divide by 100 to convert it to seconds (from centiseconds)
-        List<Node> shortestPath = dijkstras.getPath(endNode, dijkstras.nodes);
-
-        if (!shortestPath.isEmpty()) {
-            System.out.println("The shortest path contains this amount of nodes: " + shortestPath.size());
-        } else {
-            System.out.println("No path found.");
-        }
-
-        int travelTimeHours = travelTime / 3600;
-        int travelTimeMinutes = (travelTime % 3600) / 60;
-        int travelTimeSeconds = (travelTime - travelTimeHours * 3600 - travelTimeMinutes * 60);
-        System.out.println("The shortest path takes this amount of time: " + travelTimeHours + " hour(s), " + travelTimeMinutes + " minute(s) and " + travelTimeSeconds + " second(s)\n");
-
-        /*
-        for(int i=0; i < shortestPath.size(); i+=38) {
-            System.out.println(shortestPath.get(i).latitude + "," + shortestPath.get(i).longitude);
-        }
-         */
+    public Isochrone isochrone(int startNodeNumber, RoadGraph graph, int maxTravelTime) {
+        SearchContext context = searchContext(graph.amountNodes);
+        long startTime = System.nanoTime();
+        Isochrone isochrone = isochrone(startNodeNumber, graph, maxTravelTime, context);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("Isochrone", context, latency);
+        logger.fine(() -> "Isochrone from Node: " + startNodeNumber + " within " + maxTravelTime / 100 + " seconds in "
+                + latency / 1e6 + " ms, processed nodes: " + context.nodesPicked);
+        return isochrone;
     }
-}
-
-class PreprocessedDijkstra extends DijkstrasAlgorithm {
 
     /**
-     * Runs the dijkstra algorithm on the whole graph from the start node.
-     * @param startNodeNumber the node where the algorithm starts.
+     * Finds every node that can be reached from the start node within a travel time budget.
+     * Nodes over the budget are never added to the queue, so the search only picks the nodes
+     * in the result, and the cost does not depend on the size of the rest of the map.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param graph           The graph that will be searched through.
+     * @param maxTravelTime   The travel time budget in centiseconds.
+     * @param context         The context the state of the search is stored in.
+     * @return The reachable nodes and their travel times, closest first.
      */
-    private void dijkstra(int startNodeNumber, Node[] nodes) {
-        Node startNode = nodes[startNodeNumber];
-        startNode.travelTimeFromStartNode = 0;
-        PriorityQueue<Node> priorityQueue = new PriorityQueue<>(comparingInt(node -> node.travelTimeFromStartNode));
-        priorityQueue.add(startNode);
+    public Isochrone isochrone(int startNodeNumber, RoadGraph graph, int maxTravelTime, SearchContext context) {
+        // The picked nodes, the arrays are made larger when they are full.
+        int[] nodes = new int[1024];
+        int[] travelTimes = new int[1024];
+        int amountReached = 0;
+
+        context.reset();
+        context.update(startNodeNumber, 0, -1);
+        NodePriorityQueue priorityQueue = context.priorityQueue;
+        priorityQueue.addOrDecrease(startNodeNumber, 0);
         while (!priorityQueue.isEmpty()) {
-            Node currentNode = priorityQueue.poll();
-            for (Edge edge : currentNode.edges) {
-                int newTravelTime = currentNode.travelTimeFromStartNode + edge.travelTime;
-                if (newTravelTime < edge.toNode.travelTimeFromStartNode) {
-                    priorityQueue.remove(edge.toNode);
-                    edge.toNode.travelTimeFromStartNode = newTravelTime;
-                    edge.toNode.previousNode = currentNode;
-                    priorityQueue.add(edge.toNode);
+            int currentNode = priorityQueue.poll();
+            int currentTravelTime = context.travelTime(currentNode);
+            context.nodesPicked++;
+            if (amountReached == nodes.length) {
+                nodes = Arrays.copyOf(nodes, amountReached * 2);
+                travelTimes = Arrays.copyOf(travelTimes, amountReached * 2);
+            }
+            nodes[amountReached] = currentNode;
+            travelTimes[amountReached++] = currentTravelTime;
+
+            if (SearchMetrics.ENABLED) {
+                context.edgesRelaxed += graph.edgeStart[currentNode + 1] - graph.edgeStart[currentNode];
+            }
+            for (int edge = graph.edgeStart[currentNode]; edge < graph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = graph.edgeTarget[edge];
+                int newTravelTime = currentTravelTime + graph.travelTime[edge];
+                if (newTravelTime <= maxTravelTime && newTravelTime < context.travelTime(toNode)) {
+                    if (SearchMetrics.ENABLED && context.travelTime(toNode) != Integer.MAX_VALUE) {
+                        context.decreaseKeys++;
+                    }
+                    context.update(toNode, newTravelTime, currentNode, edge);
+                    priorityQueue.addOrDecrease(toNode, newTravelTime);
+                    if (SearchMetrics.ENABLED) {
+                        context.countQueueUpdate();
+                    }
                 }
             }
         }
+        return new Isochrone(startNodeNumber, maxTravelTime,
+                Arrays.copyOf(nodes, amountReached), Arrays.copyOf(travelTimes, amountReached));
     }
 
     /**
-     * Preprocesses a graph using the dijkstra algorithm and landmarks as start-nodes.
-     * @param landmarks array containing the node numbers of landmarks to run the dijkstra
-     *                  algorithm from.
+     * Make an array containing the node numbers in the shortest path found from the last search.
+     *
+     * @param endNodeNumber the end node´s node number used in Dijkstra´s algorithm
+     * @return Array of the node numbers in the shortest path, empty if the end node was not reached
      */
-    private void preprocess(int[] landmarks) {
-        for (int landmark : landmarks) {
+    public int[] getPath(int endNodeNumber) {
+        return getPath(endNodeNumber, searchContext);
+    }
 
-            dijkstra(landmark, nodes);
-            int[] landmarkToNodesDriveTime = new int[nodes.length];
-            for (Node n : nodes) {
-                landmarkToNodesDriveTime[n.nodeNumber] = n.travelTimeFromStartNode;
-            }
-            landmarkToNodes.put(landmark, landmarkToNodesDriveTime);
+    /**
+     * Make an array containing the node numbers in the shortest path found from the last search
+     * that used the context.
+     *
+     * @param endNodeNumber the end node´s node number used in Dijkstra´s algorithm
+     * @param context the context of the search
+     * @return Array of the node numbers in the shortest path, empty if the end node was not reached
+     */
+    public int[] getPath(int endNodeNumber, SearchContext context) {
+        return Arrays.copyOf(context.path, fillPath(endNodeNumber, context));
+    }
 
-            dijkstra(landmark, invertedNodes);
-            int[] nodesToLandmarkDriveTime = new int[invertedNodes.length];
-            for (Node n : invertedNodes) {
-                nodesToLandmarkDriveTime[n.nodeNumber] = n.travelTimeFromStartNode;
+    /**
+     * Puts the node numbers in the shortest path found from the last search that used the
+     * context into the path buffer of the context, in order from the start node.
+     * The buffer is reused, so this does not allocate unless the path is longer than any
+     * path read from the context before, and the path is only valid until the next call.
+     *
+     * @param endNodeNumber the end node´s node number used in Dijkstra´s algorithm
+     * @param context the context of the search
+     * @return The amount of nodes in the path, which are the first ones in context.path. 0 if the end node was not reached
+     */
+    public int fillPath(int endNodeNumber, SearchContext context) {
+        if (context.travelTime(endNodeNumber) == Integer.MAX_VALUE) {
+            return 0;
+        }
+        // We retrace the shortest path found from Dijkstra backwards, filling the buffer
+        // from the back, since the length of the path is not known until the start is reached.
+        // When the currentNode is -1 means we have reach the startNode
+        // since it does not have a previous node.
+        int[] path = context.path;
+        int position = path.length;
+        for (int currentNode = endNodeNumber; currentNode != -1; currentNode = context.previousNode(currentNode)) {
+            if (position == 0) {
+                // The buffer is full, so the part that is filled is moved to the back of a larger one.
+                int[] largerPath = new int[path.length * 2];
+                System.arraycopy(path, 0, largerPath, path.length, path.length);
+                position = path.length;
+                path = largerPath;
+                context.path = path;
             }
-            nodesToLandmark.put(landmark, nodesToLandmarkDriveTime);
-
+            path[--position] = currentNode;
         }
+        // We then move the path to the front of the buffer.
+        int pathLength = path.length - position;
+        System.arraycopy(path, position, path, 0, pathLength);
+        return pathLength;
     }
 
     /**
-     * Writes preprocessed dijkstra data to a file with the format:<br>
-     * ------------------------------------------------------------------<br>
-     * landmark(1)-distArray(1) ...landmark(n)-distArray(n)<br>
-     * landmarkNum distIndex distance<br>
-     * ------------------------------------------------------------------<br>
-     * For example, only one landmark = 0 may result in:
-     * ------------------------------------------------------------------<br>
-     * 0-112779<br>
-     * 0 0 0<br>
-     * 0 1 1251<br>
-     * 0 2 1422<br>
-     * ...<br>
-     * ------------------------------------------------------------------
-     * @param fileName name of the file containing preprocessed data.
-     * @param landmarks array consisting of node numbers, corresponding to landmarks on a map.
-     * @throws IOException if there was a problem writing to file.
+     * Makes a summary of the route to a node found by the last travel time search through the
+     * graph, with a point of the polyline for every 38th node.
+     * The graph is read when the summary is made, so the travel times must not have been
+     * updated since the search, see the other routeSummary for that.
+     *
+     * @param endNodeNumber the end node´s node number used in the search
+     * @return The length, travel time and speed limits of the route
      */
-    public void writeFromLandmarks(String fileName, int[] landmarks)
-            throws IOException {
-        BufferedWriter bufferedWriter = new BufferedWriter(new FileWriter(fileName));
-        preprocess(landmarks);
-
-        bufferedWriter.write(String.valueOf(landmarks.length)); bufferedWriter.newLine();
-        landmarkToNodes.forEach((k, v) -> {
-            try {
-                bufferedWriter.write(k + " " + v.length);
-                for (int i = 0; i < v.length; i++) {
-                    String out = "";
-                    out = out.concat(k + " " + i + " " + v[i]);
-                    bufferedWriter.newLine(); bufferedWriter.write(out);
-                }
-                for (int i = 0; i < v.length; i++) {
-                    String out = "";
-                    out = out.concat(i + " " + k + " " + nodesToLandmark.get(k)[i]);
-                    bufferedWriter.newLine(); bufferedWriter.write(out);
-                }
-                bufferedWriter.newLine(); bufferedWriter.newLine();
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
-        });
-        bufferedWriter.close();
-    }
-
-    /**
-     * Reads a preprocessed file containing the shortest distance between landmarks and all other
-     * nodes in a graph.
-     * @param filename name of file to read.
-     * @return The {@code Map<Integer, int[]>} containing landmarks, and distances to other nodes.
-     * @throws Exception if it failed to read from the file.
-     */
-    public void readFromLandmarks(String filename, Map<Integer, int[]> landmarkToNodes, Map<Integer, int[]> nodesToLandmark) {
-        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(filename))) {
-            StringTokenizer stringTokenizer = new StringTokenizer(bufferedReader.readLine(), " ");
-
-            // Reads the first integer representing amounts of landmarks.
-            int landmarks = Integer.parseInt(stringTokenizer.nextToken());
-            // Loops for each landmark.
-            for (int i = 0; i < landmarks; i++) {
-                stringTokenizer = new StringTokenizer(bufferedReader.readLine(), " ");
-                int landmark = Integer.parseInt(stringTokenizer.nextToken());
-                int arraySize = Integer.parseInt(stringTokenizer.nextToken());
-                landmarkToNodes.put(landmark, new int[arraySize]);
-                nodesToLandmark.put(landmark, new int[arraySize]);
-                //int[] landmarkToNodesArray = new int[arraySize];
-                //int[] nodesToLandmarkArray = new int[arraySize];
-
-                String nextLine = bufferedReader.readLine();
-                for (int j = 0; j < arraySize; j++) {
-                    stringTokenizer = new StringTokenizer(nextLine, " ");
-                    int l = Integer.parseInt(stringTokenizer.nextToken());
-                    int n = Integer.parseInt(stringTokenizer.nextToken());
-                    int minDriveTime = Integer.parseInt(stringTokenizer.nextToken());
-                    landmarkToNodes.get(l)[n] = minDriveTime;
-                    nextLine = bufferedReader.readLine();
-                }
-                for (int j = 0; j < arraySize; j++) {
-                    stringTokenizer = new StringTokenizer(nextLine, " ");
-                    int n = Integer.parseInt(stringTokenizer.nextToken());
-                    int l = Integer.parseInt(stringTokenizer.nextToken());
-                    int minDriveTime = Integer.parseInt(stringTokenizer.nextToken());
-                    nodesToLandmark.get(l)[n] = minDriveTime;
-                    nextLine = bufferedReader.readLine();
-                }
-                //landmarkToNodes.put(landmark, landmarkToNodesArray);
-                //nodesToLandmark.put(landmark, nodesToLandmarkArray);
-            }
-            logger.info("DONE READING: " + filename);
-        }catch (IOException e) {
-            e.printStackTrace();
-        }
+    public RouteSummary routeSummary(int endNodeNumber) {
+        return routeSummary(endNodeNumber, graph, CostMetric.TRAVEL_TIME, searchContext, 38);
     }
 
     /**
-     * Main method - Run this to generate preprocessed file.
+     * Makes a summary of the route to a node found by the last search that used the context,
+     * in one pass over the path with the edges the search recorded. The path buffer of the
+     * context is used, see fillPath.
      *
-     * @param args String[].
+     * @param endNodeNumber the end node´s node number used in the search
+     * @param searchedGraph the graph the search went through, the forward graph of a bidirectional
+     *                      search, for example GraphVersion.graph of the version that was searched
+     * @param metric the cost metric the search minimized
+     * @param context the context of the search, the forward context of a bidirectional search
+     * @param sampleInterval the amount of nodes between two points of the polyline
+     * @return The length, travel time and speed limits of the route
      */
-    public static void main(String[] args) {
-        try {
-            PreprocessedDijkstra pd = new PreprocessedDijkstra();
-            pd.readNodeFile("noder.txt");
-            pd.readEdgeFile("kanter.txt");
-            pd.readEdgeFileInverted("kanter.txt");
-            String filename = "preprossesert.txt";
-            int[] landmarks = new int[]{1102516, 3047524, 4392562, 6101939};
-            pd.writeFromLandmarks(filename, landmarks);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
+    public RouteSummary routeSummary(int endNodeNumber, RoadGraph searchedGraph, CostMetric metric,
+                                     SearchContext context, int sampleInterval) {
+        return new RouteSummary(this, searchedGraph, metric, endNodeNumber, context, sampleInterval);
     }
-}
 
-class AltAlgorithm extends DijkstrasAlgorithm {
+    /**
+     * Uses bidirectional Dijkstra to find the shortest path from a start node to an end node,
+     * records the time it took in SearchMetrics, and logs it at level FINE.
+     * Both the edge file and the inverted edge file must be read.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @return The shortest travel time from the start node to the end node in centiseconds. Returns -1 if there is no path.
+     */
+    public int bidirectionalDijkstra(int startNodeNumber, int endNodeNumber) {
+        SearchContext forward = searchContext(graph.amountNodes);
+        SearchContext backward = backwardSearchContext(graph.amountNodes);
+        long startTime = System.nanoTime();
+        int travelTime = bidirectionalDijkstra(startNodeNumber, endNodeNumber, forward, backward);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("Bidirectional Dijkstra", forward, backward, latency);
+        logger.fine(() -> "Bidirectional Dijkstra from Node: " + startNodeNumber + " to Node: " + endNodeNumber + " in "
+                + latency / 1e6 + " ms, processed nodes: " + (forward.nodesPicked + backward.nodesPicked));
+        return travelTime;
+    }
 
     /**
-     * Returns estimate from behind start.
+     * Uses bidirectional Dijkstra to find the shortest path from a start node to an end node.
+     * One search goes forward from the start node in the graph, and one goes backward from
+     * the end node in the inverted graph, until they meet.
+     * The path can be found with getPath(endNodeNumber, forward) afterwards.
      *
-     * @param n the current node number.
-     * @param L the landmark node number.
-     * @param goal the end node number.
-     * @return estimate.
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param forward         The context the state of the forward search is stored in.
+     * @param backward        The context the state of the backward search is stored in.
+     * @return The shortest travel time from the start node to the end node in centiseconds. Returns -1 if there is no path.
      */
-    public int behindStart(int n, int L, int goal) {
-        // If L is after the goal, then the estimate is negative.
-        return landmarkToNodes.get(L)[goal] - landmarkToNodes.get(L)[n];
+    public int bidirectionalDijkstra(int startNodeNumber, int endNodeNumber, SearchContext forward, SearchContext backward) {
+        return bidirectionalDijkstra(startNodeNumber, endNodeNumber, CostMetric.TRAVEL_TIME, forward, backward);
     }
 
     /**
-     * Returns estimate from behind start.
+     * Uses bidirectional Dijkstra to find the path with the lowest cost in a metric.
+     * The path can be found with getPath(endNodeNumber, forward) afterwards.
      *
-     * @param n the current node number.
-     * @param L the landmark node number.
-     * @param goal the end node number.
-     * @return estimate.
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param metric          The cost metric to minimize.
+     * @param forward         The context the state of the forward search is stored in.
+     * @param backward        The context the state of the backward search is stored in.
+     * @return The lowest cost from the start node to the end node. Returns -1 if there is no path.
      */
-    public int afterGoal(int n, int L, int goal) {
-        // If L is behind the start, then the estimate is negative.
-        return nodesToLandmark.get(L)[n] - nodesToLandmark.get(L)[goal];
+    public int bidirectionalDijkstra(int startNodeNumber, int endNodeNumber, CostMetric metric,
+                                     SearchContext forward, SearchContext backward) {
+        return bidirectionalDijkstra(startNodeNumber, endNodeNumber, currentVersion(metric), metric, forward, backward);
     }
 
     /**
-     * Returns the highest estimate from all landmarks.
+     * Uses bidirectional Dijkstra to find the path with the lowest cost in a metric in one
+     * version of the graphs, see currentVersion.
      *
-     * @param currentNode the current node number.
-     * @param endNode the end node number.
-     * @return highest estimate.
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param version         The version of the graphs to search through.
+     * @param metric          The cost metric to minimize.
+     * @param forward         The context the state of the forward search is stored in.
+     * @param backward        The context the state of the backward search is stored in.
+     * @return The lowest cost from the start node to the end node. Returns -1 if there is no path.
      */
-    public int estimate(int currentNode, int endNode) {
-        int highestEstimate = 0;
-        for (int landMark : nodesToLandmark.keySet()) {
-            int afterGoal = afterGoal(currentNode, landMark, endNode);
-            int behindStart = behindStart(currentNode, landMark, endNode);
+    public int bidirectionalDijkstra(int startNodeNumber, int endNodeNumber, GraphVersion version, CostMetric metric,
+                                     SearchContext forward, SearchContext backward) {
+        return bidirectionalSearch(startNodeNumber, endNodeNumber, version, metric, forward, backward, null);
+    }
 
-            if (afterGoal > highestEstimate) {
-                highestEstimate = afterGoal;
+    /**
+     * Searches forward from the start node and backward from the end node at the same time,
+     * always continuing the search whose next node has the lowest priority.
+     * <p>
+     * Every time an edge reaches a node the other search has reached, the two half paths make
+     * a path from the start to the end, and the shortest one found so far is kept.
+     * Without landmarks the priority is the travel time, and the searches can stop when the
+     * two lowest priorities add up to at least the shortest path found, since any path through
+     * a node neither of them has picked is at least that long.
+     * <p>
+     * With landmarks the forward search uses the potential p(v) = (estimate to the end -
+     * estimate from the start) / 2, and the backward search uses -p(v). The two searches then
+     * see the same reduced edge lengths, which is what makes the same stopping rule hold.
+     * The potential is doubled so it stays an integer, so the priorities are 2 * travel time
+     * +- the doubled potential, and the stopping rule compares against 2 * the shortest path.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param version         The version of the graphs to search through.
+     * @param metric          The cost metric to minimize, the landmarks must be preprocessed with it.
+     * @param forward         The context the state of the forward search is stored in.
+     * @param backward        The context the state of the backward search is stored in.
+     * @param landmarkEstimate The landmark estimate prepared for the start and end node, or null for plain Dijkstra.
+     * @return The lowest cost from the start node to the end node, the travel time in centiseconds for CostMetric.TRAVEL_TIME. Returns -1 if there is no path.
+     */
+    protected int bidirectionalSearch(int startNodeNumber, int endNodeNumber, GraphVersion version, CostMetric metric,
+                                      SearchContext forward, SearchContext backward, LandmarkEstimate landmarkEstimate) {
+        int scale = landmarkEstimate == null ? 1 : 2;
+        RoadGraph graph = version.graph;
+        RoadGraph invertedGraph = version.invertedGraph;
+        int[] forwardWeights = graph.weights(metric);
+        int[] backwardWeights = invertedGraph.weights(metric);
+        forward.reset();
+        backward.reset();
+        forward.update(startNodeNumber, 0, -1);
+        backward.update(endNodeNumber, 0, -1);
+        int startPotential = 0;
+        int endPotential = 0;
+        if (landmarkEstimate != null) {
+            startPotential = landmarkEstimate.averagePotential(startNodeNumber);
+            endPotential = landmarkEstimate.averagePotential(endNodeNumber);
+            forward.setEstimate(startNodeNumber, startPotential);
+            backward.setEstimate(endNodeNumber, endPotential);
+        }
+        forward.priorityQueue.addOrDecrease(startNodeNumber, startPotential);
+        backward.priorityQueue.addOrDecrease(endNodeNumber, -endPotential);
+
+        // The shortest path found so far, and the node where its two halves meet.
+        int shortestTravelTime = startNodeNumber == endNodeNumber ? 0 : Integer.MAX_VALUE;
+        int meetingNode = startNodeNumber == endNodeNumber ? startNodeNumber : -1;
+
+        // If one of the queues is empty, that search has found every node it can reach,
+        // and the shortest path is already known.
+        while (!forward.priorityQueue.isEmpty() && !backward.priorityQueue.isEmpty()) {
+            int forwardPriority = forward.priorityQueue.peekPriority();
+            int backwardPriority = backward.priorityQueue.peekPriority();
+            // Long, since the sum can overflow when nothing has been found yet.
+            if ((long) forwardPriority + backwardPriority >= (long) scale * shortestTravelTime) {
+                break;
             }
-            if (behindStart > highestEstimate) {
-                highestEstimate = behindStart;
+            boolean forwardTurn = forwardPriority <= backwardPriority;
+            SearchContext context = forwardTurn ? forward : backward;
+            SearchContext other = forwardTurn ? backward : forward;
+            RoadGraph searchGraph = forwardTurn ? graph : invertedGraph;
+            int[] weights = forwardTurn ? forwardWeights : backwardWeights;
+            // The backward search uses the negated potential.
+            int sign = forwardTurn ? 1 : -1;
+
+            int currentNode = context.priorityQueue.poll();
+            context.nodesPicked++;
+            int currentTravelTime = context.travelTime(currentNode);
+            if (SearchMetrics.ENABLED) {
+                context.edgesRelaxed += searchGraph.edgeStart[currentNode + 1] - searchGraph.edgeStart[currentNode];
+            }
+            for (int edge = searchGraph.edgeStart[currentNode]; edge < searchGraph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = searchGraph.edgeTarget[edge];
+                int newTravelTime = currentTravelTime + weights[edge];
+                if (newTravelTime < context.travelTime(toNode)) {
+                    int potential = 0;
+                    if (landmarkEstimate != null) {
+                        potential = context.estimate(toNode);
+                        if (potential == Integer.MIN_VALUE) {
+                            potential = landmarkEstimate.averagePotential(toNode);
+                        }
+                    }
+                    if (SearchMetrics.ENABLED && context.travelTime(toNode) != Integer.MAX_VALUE) {
+                        context.decreaseKeys++;
+                    }
+                    context.update(toNode, newTravelTime, currentNode, edge);
+                    if (landmarkEstimate != null) {
+                        context.setEstimate(toNode, potential);
+                    }
+                    context.priorityQueue.addOrDecrease(toNode, scale * newTravelTime + sign * potential);
+                    if (SearchMetrics.ENABLED) {
+                        context.countQueueUpdate();
+                    }
+
+                    int otherTravelTime = other.travelTime(toNode);
+                    if (otherTravelTime != Integer.MAX_VALUE && newTravelTime + otherTravelTime < shortestTravelTime) {
+                        shortestTravelTime = newTravelTime + otherTravelTime;
+                        meetingNode = toNode;
+                    }
+                }
             }
         }
-        return highestEstimate;
+
+        if (meetingNode == -1) {
+            return -1;
+        }
+        joinPaths(meetingNode, endNodeNumber, forward, backward, invertedGraph.forwardEdges(graph));
+        return shortestTravelTime;
     }
 
     /**
-     * Represents the ALT for finding the shortest drive time between two points.
+     * Uses A* to find the shortest path from a start node to an end node,
+     * records the time it took in SearchMetrics, and logs it at level FINE.
      *
-     * @param startNodeNumber the start node's number.
-     * @param endNodeNumber the end node's number.
-     * @return the shortest drive time between two points.
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @return The shortest travel time from the start node to the end node in centiseconds. Returns -1 if there is no path.
      */
-    public int ALT(int startNodeNumber, int endNodeNumber) {
-        Node startNode = nodes[startNodeNumber];
-        Node endNode = nodes[endNodeNumber];
-        startNode.travelTimeFromStartNode = 0;
-        startNode.estimate = estimate(startNodeNumber, endNodeNumber);
-
-        // PriorityQueue that priorities lowest travelTime + estimate
-        PriorityQueue<Node> priorityQueue = new PriorityQueue<>(comparingInt((node) -> node.travelTimeFromStartNode + node.estimate));
-        priorityQueue.add(startNode);
+    public int aStar(int startNodeNumber, int endNodeNumber) {
+        SearchContext context = searchContext(graph.amountNodes);
+        long startTime = System.nanoTime();
+        int travelTime = aStar(startNodeNumber, endNodeNumber, CostMetric.TRAVEL_TIME, context);
+        long latency = System.nanoTime() - startTime;
+        SearchMetrics.record("A*", context, latency);
+        logger.fine(() -> "A* from Node: " + startNodeNumber + " to Node: " + endNodeNumber + " in "
+                + latency / 1e6 + " ms, processed nodes: " + context.nodesPicked);
+        return travelTime;
+    }
 
-        int nodesPicked = 0;
-        long startTime = System.currentTimeMillis();
+    /**
+     * Uses A* to find the path with the lowest cost in a metric from a start node to an end node.
+     * The estimate is the lower bound from the coordinates, see GeometricEstimate, so it
+     * needs no preprocessing, unlike ALT.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param metric          The cost metric to minimize.
+     * @param context         The context the state of the search is stored in.
+     * @return The lowest cost from the start node to the end node. Returns -1 if there is no path.
+     */
+    public int aStar(int startNodeNumber, int endNodeNumber, CostMetric metric, SearchContext context) {
+        return aStar(startNodeNumber, endNodeNumber, currentVersion(metric), metric, context);
+    }
 
+    /**
+     * Uses A* to find the path with the lowest cost in a metric in one version of the graph,
+     * see currentVersion.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber   The ending node´s node number.
+     * @param version         The version of the graph to search through.
+     * @param metric          The cost metric to minimize.
+     * @param context         The context the state of the search is stored in.
+     * @return The lowest cost from the start node to the end node. Returns -1 if there is no path.
+     */
+    public int aStar(int startNodeNumber, int endNodeNumber, GraphVersion version, CostMetric metric,
+                     SearchContext context) {
+        RoadGraph graph = version.graph;
+        int[] weights = graph.weights(metric);
+        GeometricEstimate estimate = geometricEstimate();
+        double costPerChord = graph.costPerChord(metric, estimate);
+
+        context.reset();
+        context.update(startNodeNumber, 0, -1);
+        NodePriorityQueue priorityQueue = context.priorityQueue;
+        priorityQueue.addOrDecrease(startNodeNumber, estimate.estimate(startNodeNumber, endNodeNumber, costPerChord));
+
+        // The bound never drops more along an edge than the cost of the edge, so a node has
+        // its lowest cost when it is picked, and the search can stop at the end node.
         while (!priorityQueue.isEmpty()) {
-            Node currentNode = priorityQueue.poll();
-            nodesPicked++;
-
-            for (Edge edge : currentNode.edges) {
-                int newTravelTime = currentNode.travelTimeFromStartNode + edge.travelTime;
-                edge.toNode.estimate = estimate(edge.toNode.nodeNumber, endNodeNumber);
-                if (newTravelTime < edge.toNode.travelTimeFromStartNode) {
-                    priorityQueue.remove(edge.toNode);
-                    edge.toNode.travelTimeFromStartNode = newTravelTime;
-                    edge.toNode.previousNode = currentNode;
-                    priorityQueue.add(edge.toNode);
-                }
-            }
-            if (currentNode.equals(endNode)) {
+            int currentNode = priorityQueue.poll();
+            context.nodesPicked++;
+            if (currentNode == endNodeNumber) {
                 break;
             }
+
+            int currentTravelTime = context.travelTime(currentNode);
+            if (SearchMetrics.ENABLED) {
+                context.edgesRelaxed += graph.edgeStart[currentNode + 1] - graph.edgeStart[currentNode];
+            }
+            for (int edge = graph.edgeStart[currentNode]; edge < graph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = graph.edgeTarget[edge];
+                int newTravelTime = currentTravelTime + weights[edge];
+                if (newTravelTime < context.travelTime(toNode)) {
+                    // The estimate only depends on the node, so it is computed the first time
+                    // the node is reached and reused if a quicker path is found later.
+                    int toNodeEstimate = context.estimate(toNode);
+                    if (toNodeEstimate == Integer.MIN_VALUE) {
+                        toNodeEstimate = estimate.estimate(toNode, endNodeNumber, costPerChord);
+                    }
+                    if (SearchMetrics.ENABLED && context.travelTime(toNode) != Integer.MAX_VALUE) {
+                        context.decreaseKeys++;
+                    }
+                    context.update(toNode, newTravelTime, currentNode, edge);
+                    context.setEstimate(toNode, toNodeEstimate);
+                    priorityQueue.addOrDecrease(toNode, newTravelTime + toNodeEstimate);
+                    if (SearchMetrics.ENABLED) {
+                        context.countQueueUpdate();
+                    }
+                }
+            }
         }
-        long endTime = System.currentTimeMillis();
-        long executionTime = (endTime - startTime);
-        System.out.println("Alt Algorithm from Node: " + startNodeNumber + " to Node: " + endNodeNumber);
-        System.out.println("Execution time in milliseconds: " + executionTime);
-        System.out.println("Amount of processed nodes: " + nodesPicked);
 
-        // Check if the travel time to the endNode is still Integer.MAX_VALUE
-        // This means it is not possible to reach the endNode from the startNode
-        if (endNode.travelTimeFromStartNode == Integer.MAX_VALUE) {
+        if (context.travelTime(endNodeNumber) == Integer.MAX_VALUE) {
             return -1;
         }
-        return endNode.travelTimeFromStartNode;
+        return context.travelTime(endNodeNumber);
     }
 
     /**
-     * Main method - entrypoint.
+     * Returns the unit vectors of the nodes for A*, and makes them if they have not been made
+     * for the current coordinates.
      *
-     * @param args String[].
+     * @return The geometric estimate.
      */
-    public static void main(String[] args) {
+    protected synchronized GeometricEstimate geometricEstimate() {
+        if (geometricEstimate == null || geometricEstimate.latitude != graph.latitude
+                || geometricEstimate.longitude != graph.longitude) {
+            geometricEstimate = new GeometricEstimate(graph.latitude, graph.longitude);
+        }
+        return geometricEstimate;
+    }
 
-        PreprocessedDijkstra pd = new PreprocessedDijkstra();
-        AltAlgorithm altAlgorithm = new AltAlgorithm();
-        pd.readFromLandmarks("preprossesert.txt", altAlgorithm.landmarkToNodes, altAlgorithm.nodesToLandmark);
+    /**
+     * Continues the forward search tree from the meeting node to the end node along the
+     * backward search tree, so the whole path can be read from the forward context.
+     * The edges the backward search recorded are edges of the inverted graph, and are stored
+     * as the same roads in the forward graph.
+     *
+     * @param meetingNode   The node where the two halves of the shortest path meet.
+     * @param endNodeNumber The ending node´s node number.
+     * @param forward       The context of the forward search.
+     * @param backward      The context of the backward search.
+     * @param forwardEdges  The index in the forward graph of each edge of the inverted graph, see RoadGraph.forwardEdges.
+     */
+    private void joinPaths(int meetingNode, int endNodeNumber, SearchContext forward, SearchContext backward,
+                           int[] forwardEdges) {
+        int totalTravelTime = forward.travelTime(meetingNode) + backward.travelTime(meetingNode);
+        int currentNode = meetingNode;
+        while (currentNode != endNodeNumber) {
+            // In the backward search, the previous node is the next node on the way to the end,
+            // and the previous edge is the inverted road from it to the current node.
+            int nextNode = backward.previousNode(currentNode);
+            int invertedEdge = backward.previousEdge(currentNode);
+            forward.update(nextNode, totalTravelTime - backward.travelTime(nextNode), currentNode,
+                    invertedEdge == -1 ? -1 : forwardEdges[invertedEdge]);
+            currentNode = nextNode;
+        }
+    }
 
-        String nodeFile = "noder.txt";
-        altAlgorithm.readNodeFile(nodeFile);
+    public static void main(String[] args) {
+        DijkstrasAlgorithm dijkstras = new DijkstrasAlgorithm();
 
-        String edgeFile = "kanter.txt";
-        altAlgorithm.readEdgeFile(edgeFile);
+        // The text files are only read the first time, later runs open the snapshot.
+        String snapshotFile = "kart.bin";
+        if (new File(snapshotFile).exists()) {
+            dijkstras.readSnapshot(snapshotFile);
+        } else {
+            dijkstras.loadGraph("noder.txt", "kanter.txt");
+            dijkstras.readPointOfInterestStore("interessepkt.txt");
+            try {
+                dijkstras.writeSnapshot(snapshotFile);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        System.out.println("Graph size in bytes: " + dijkstras.graph.memoryFootprint());
 
-        int startNode = 5009309;
+        int startNode = 5009309 ;
         int endNode = 999080;
-        int travelTime = altAlgorithm.ALT(startNode, endNode) / 100; // Divide by 100 to convert it to seconds (from centiseconds)
-        List<Node> shortestPath = altAlgorithm.getPath(endNode, altAlgorithm.nodes);
-        if (!shortestPath.isEmpty()) {
-            System.out.println("The shortest path contains this amount of nodes: " + shortestPath.size());
+        int travelTime = dijkstras.dijkstra(startNode, endNode, dijkstras.graph) / 100; // Divide by 100 to convert it to seconds (from centiseconds)
+        int[] shortestPath = dijkstras.getPath(endNode);
+
+        if (shortestPath.length > 0) {
+            System.out.println("The shortest path contains this amount of nodes: " + shortestPath.length);
         } else {
             System.out.println("No path found.");
         }
@@ -746,10 +1335,27 @@ class AltAlgorithm extends DijkstrasAlgorithm {
         int travelTimeSeconds = (travelTime - travelTimeHours * 3600 - travelTimeMinutes * 60);
         System.out.println("The shortest path takes this amount of time: " + travelTimeHours + " hour(s), " + travelTimeMinutes + " minute(s) and " + travelTimeSeconds + " second(s)\n");
 
+        // The length of the route and how much of it is driven at each speed limit.
+        RouteSummary routeSummary = dijkstras.routeSummary(endNode);
+        System.out.println(routeSummary);
+
+        // The same query searched from both ends, should give the same travel time.
+        int bidirectionalTravelTime = dijkstras.bidirectionalDijkstra(startNode, endNode) / 100;
+        System.out.println("Bidirectional travel time in seconds: " + bidirectionalTravelTime + "\n");
+
+        // A* with the bound from the coordinates, without any landmark file.
+        int aStarTravelTime = dijkstras.aStar(startNode, endNode) / 100;
+        System.out.println("A* travel time in seconds: " + aStarTravelTime + "\n");
+
+        // The execution times and counters, when run with -DsearchMetrics=true.
+        if (SearchMetrics.ENABLED) {
+            System.out.print(SearchMetrics.summary());
+        }
+
         /*
-        for (int i = 0; i < shortestPath.size(); i+=38) {
-            System.out.println(shortestPath.get(i).latitude + "," + shortestPath.get(i).longitude);
+        for(int i=0; i < routeSummary.polylineLatitude.length; i++) {
+            System.out.println(routeSummary.polylineLatitude[i] + "," + routeSummary.polylineLongitude[i]);
         }
          */
     }
-}
\ No newline at end of file
+}
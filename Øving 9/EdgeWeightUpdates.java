@@ -0,0 +1,41 @@
+import java.util.Arrays;
+
+/**
+ * A batch of new travel times for edges, for example from traffic incidents, applied all at
+ * once with DijkstrasAlgorithm.updateTravelTimes.
+ * An edge is given by the node it goes from and the node it goes to, and every edge between
+ * the two nodes gets the new travel time.
+ */
+class EdgeWeightUpdates {
+    // The node each updated edge goes from, and the node it goes to.
+    int[] fromNode = new int[16];
+    int[] toNode = new int[16];
+    // The new travel time of each updated edge in centiseconds.
+    int[] travelTime = new int[16];
+    // Amount of updated edges.
+    int amount = 0;
+
+    /**
+     * Adds a new travel time for the edges from one node to another.
+     *
+     * @param from The node the edge goes from.
+     * @param to The node the edge goes to.
+     * @param newTravelTime The new travel time in centiseconds.
+     * @return This batch, so several updates can be added in one statement.
+     * @throws IllegalArgumentException if the travel time is negative.
+     */
+    EdgeWeightUpdates set(int from, int to, int newTravelTime) {
+        if (newTravelTime < 0) {
+            throw new IllegalArgumentException("The travel time from " + from + " to " + to + " can not be negative");
+        }
+        if (amount == fromNode.length) {
+            fromNode = Arrays.copyOf(fromNode, amount * 2);
+            toNode = Arrays.copyOf(toNode, amount * 2);
+            travelTime = Arrays.copyOf(travelTime, amount * 2);
+        }
+        fromNode[amount] = from;
+        toNode[amount] = to;
+        travelTime[amount++] = newTravelTime;
+        return this;
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Lower bound on the cost from a node to a goal from the coordinates of the nodes, for A*
+ * when there are no landmarks.
+ * <p>
+ * Each node is stored as a unit vector, its position on a sphere with radius 1, so the
+ * straight line (chord) distance between two nodes costs a few multiplies and a square root
+ * instead of the trigonometry of the great circle distance. The chord is never longer than
+ * the great circle.
+ * <p>
+ * The lowest cost per chord length over all edges is found once for each graph and metric,
+ * and kept in the graph, see RoadGraph.costPerChord. The chord to the goal times this is then
+ * never more than the real cost to the goal, since every edge on the way costs at least that
+ * much per chord length, and the chords of the edges are at least as long as the chord to the
+ * goal together. For the travel time this is the
+ * chord over the highest speed in the graph. The bound also never drops more along an edge
+ * than the cost of the edge, so A* never has to pick a node twice.
+ */
+class GeometricEstimate {
+    // The coordinate arrays the unit vectors were made from.
+    final double[] latitude;
+    final double[] longitude;
+    // The x, y and z of the unit vector of node n are at 3n, 3n + 1 and 3n + 2.
+    private final double[] unitVectors;
+
+    /**
+     * Class constructor, makes the unit vectors.
+     *
+     * @param latitude The latitude coordinate of each node.
+     * @param longitude The longitude coordinate of each node.
+     */
+    GeometricEstimate(double[] latitude, double[] longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        unitVectors = new double[3 * latitude.length];
+        for (int node = 0; node < latitude.length; node++) {
+            double latitudeRadians = Math.toRadians(latitude[node]);
+            double longitudeRadians = Math.toRadians(longitude[node]);
+            unitVectors[3 * node] = Math.cos(latitudeRadians) * Math.cos(longitudeRadians);
+            unitVectors[3 * node + 1] = Math.cos(latitudeRadians) * Math.sin(longitudeRadians);
+            unitVectors[3 * node + 2] = Math.sin(latitudeRadians);
+        }
+    }
+
+    /**
+     * Returns the chord length between two nodes on the unit sphere.
+     *
+     * @param node The first node.
+     * @param other The second node.
+     * @return The chord length, 2 is the diameter.
+     */
+    double chord(int node, int other) {
+        double dx = unitVectors[3 * node] - unitVectors[3 * other];
+        double dy = unitVectors[3 * node + 1] - unitVectors[3 * other + 1];
+        double dz = unitVectors[3 * node + 2] - unitVectors[3 * other + 2];
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Finds the lowest cost per chord length over the edges of a graph.
+     *
+     * @param graph The graph, with the same coordinates as this.
+     * @param weights The cost of each edge in the graph.
+     * @return The cost per chord length, 0 if an edge has no cost but a length.
+     */
+    double costPerChord(RoadGraph graph, int[] weights) {
+        double lowest = Double.POSITIVE_INFINITY;
+        for (int node = 0; node < graph.amountNodes; node++) {
+            for (int edge = graph.edgeStart[node]; edge < graph.edgeStart[node + 1]; edge++) {
+                double chord = chord(node, graph.edgeTarget[edge]);
+                if (chord > 0) {
+                    lowest = Math.min(lowest, weights[edge] / chord);
+                }
+            }
+        }
+        // Made a little smaller, so rounding errors can not make the bound too high.
+        return lowest == Double.POSITIVE_INFINITY ? 0 : lowest * (1 - 1e-9);
+    }
+
+    /**
+     * Returns the lower bound on the cost from a node to the goal.
+     *
+     * @param node The node number.
+     * @param goal The goal node.
+     * @param costPerChord The lowest cost per chord length, see costPerChord.
+     * @return The bound, at least 0.
+     */
+    int estimate(int node, int goal, double costPerChord) {
+        return (int) (chord(node, goal) * costPerChord);
+    }
+}
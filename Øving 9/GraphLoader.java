@@ -0,0 +1,410 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.logging.Logger;
+
+/**
+ * Reads the node file and the edge file on all cores.
+ * <p>
+ * The files are memory mapped and split into chunks, and each chunk is parsed on its own
+ * thread straight from the bytes, without making a String for every line or number.
+ * A chunk owns the lines that start inside it, so it skips the first partial line and
+ * reads past its end to finish its last line.
+ * The edge file is only parsed once, and the graph and the inverted graph are built from
+ * the same parsed edges at the same time.
+ * The time and the amount of memory allocated by the loader is logged for each file.
+ */
+class GraphLoader {
+    // The amount of bytes in each chunk of a file.
+    private static final int CHUNK_BYTES = 16 << 20;
+    // How far a chunk can read past its end to finish its last line.
+    private static final int MAX_LINE_BYTES = 1 << 16;
+    // The integer powers of ten that are exact as doubles.
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    // Amount of threads parsing chunks.
+    private final int threads;
+    // The latitude coordinate of each node, read from the node file.
+    double[] latitude;
+    // The longitude coordinate of each node, read from the node file.
+    double[] longitude;
+    // The road network with the edges as they are given in the edge file.
+    RoadGraph graph;
+    // The road network with all the edges inverted.
+    RoadGraph invertedGraph;
+
+    Logger logger = Logger.getLogger(this.getClass().getName());
+
+    /**
+     * Class constructor.
+     *
+     * @param threads Amount of threads parsing chunks.
+     */
+    GraphLoader(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Reads the coordinates of every node. The format of a line is: nodeNumber latitude longitude.
+     *
+     * @param fileName The name of the node file.
+     * @throws IOException if the file could not be read.
+     */
+    void readNodeFile(String fileName) throws IOException {
+        long startTime = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteParser header = new ByteParser(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(channel.size(), MAX_LINE_BYTES)), 0);
+            int amountNodes = header.readInt();
+            latitude = new double[amountNodes];
+            longitude = new double[amountNodes];
+            // Every line writes to its own node, so the chunks can write straight into the arrays.
+            long allocated = runChunks(channel, parser -> {
+                while (parser.nextLine()) {
+                    int nodeNumber = parser.readInt();
+                    latitude[nodeNumber] = parser.readDouble();
+                    longitude[nodeNumber] = parser.readDouble();
+                    parser.skipLine();
+                }
+                return null;
+            }, new ArrayList<>());
+            report(fileName, startTime, allocatedBefore, allocated);
+        }
+    }
+
+    /**
+     * Reads the edges, and builds the graph and the inverted graph. The node file must be read first.
+     * The format of a line is: fromNode toNode travelTime length speedLimit.
+     *
+     * @param fileName The name of the edge file.
+     * @throws IOException if the file could not be read.
+     */
+    void readEdgeFile(String fileName) throws IOException {
+        long startTime = System.nanoTime();
+        long allocatedBefore = allocatedBytes();
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteParser header = new ByteParser(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    Math.min(channel.size(), MAX_LINE_BYTES)), 0);
+            int amountEdges = header.readInt();
+            // Each chunk stores its edges as five ints in a row, since it does not know
+            // how many edges the chunks before it have.
+            List<int[]> chunkEdges = new ArrayList<>();
+            long allocated = runChunks(channel, parser -> {
+                int[] edges = new int[1024];
+                int size = 0;
+                while (parser.nextLine()) {
+                    if (size + 5 > edges.length) {
+                        edges = Arrays.copyOf(edges, edges.length * 2);
+                    }
+                    for (int field = 0; field < 5; field++) {
+                        edges[size++] = parser.readInt();
+                    }
+                    parser.skipLine();
+                }
+                return Arrays.copyOf(edges, size);
+            }, chunkEdges);
+
+            int[] fromNode = new int[amountEdges];
+            int[] toNode = new int[amountEdges];
+            int[] travelTime = new int[amountEdges];
+            int[] length = new int[amountEdges];
+            int[] speedLimit = new int[amountEdges];
+            int edge = 0;
+            for (int[] edges : chunkEdges) {
+                for (int i = 0; i < edges.length; i += 5) {
+                    fromNode[edge] = edges[i];
+                    toNode[edge] = edges[i + 1];
+                    travelTime[edge] = edges[i + 2];
+                    length[edge] = edges[i + 3];
+                    speedLimit[edge] = edges[i + 4];
+                    edge++;
+                }
+            }
+            if (edge != amountEdges) {
+                throw new IOException(fileName + " has " + edge + " edges, but says it has " + amountEdges);
+            }
+            chunkEdges.clear();
+
+            // The graph and the inverted graph are sorted at the same time.
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                Future<RoadGraph> inverted = executor.submit(() -> RoadGraph.fromEdgeList(latitude, longitude,
+                        amountEdges, toNode, fromNode, travelTime, length, speedLimit));
+                graph = RoadGraph.fromEdgeList(latitude, longitude, amountEdges, fromNode, toNode,
+                        travelTime, length, speedLimit);
+                invertedGraph = inverted.get();
+            } catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            } finally {
+                executor.shutdown();
+            }
+            report(fileName, startTime, allocatedBefore, allocated);
+        }
+    }
+
+    /**
+     * Something that parses the lines of one chunk.
+     *
+     * @param <T> The result of the chunk.
+     */
+    private interface ChunkParser<T> {
+        T parse(ByteParser parser) throws IOException;
+    }
+
+    /**
+     * Splits a file into chunks and parses them on the threads of this loader.
+     *
+     * @param channel The file.
+     * @param chunkParser What to do with the lines of each chunk.
+     * @param results List that gets the result of each chunk, in the order of the chunks.
+     * @param <T> The result of a chunk.
+     * @return The amount of bytes the threads allocated while parsing the chunks.
+     * @throws IOException if the file could not be read.
+     */
+    private <T> long runChunks(FileChannel channel, ChunkParser<T> chunkParser, List<T> results)
+            throws IOException {
+        long fileSize = channel.size();
+        int amountChunks = (int) Math.max(1, (fileSize + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, amountChunks));
+        // The amount of bytes allocated by each chunk.
+        long[] allocated = new long[amountChunks];
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int chunk = 0; chunk < amountChunks; chunk++) {
+                int chunkNumber = chunk;
+                long chunkStart = (long) chunk * CHUNK_BYTES;
+                long chunkEnd = Math.min(fileSize, chunkStart + CHUNK_BYTES);
+                futures.add(executor.submit(() -> {
+                    long allocatedBefore = allocatedBytes();
+                    // Starts one byte early, so a line starting right at the chunk start is not skipped.
+                    long mapStart = chunkNumber == 0 ? 0 : chunkStart - 1;
+                    long mapEnd = Math.min(fileSize, chunkEnd + MAX_LINE_BYTES);
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+                    ByteParser parser = new ByteParser(buffer, (int) (chunkEnd - mapStart));
+                    // The first chunk skips the line with the amount, the others skip the line
+                    // that started in the chunk before them.
+                    parser.skipLine();
+                    T result = chunkParser.parse(parser);
+                    allocated[chunkNumber] = allocatedBytes() - allocatedBefore;
+                    return result;
+                }));
+            }
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        return Arrays.stream(allocated).sum();
+    }
+
+    /**
+     * Logs the time it took to read a file, and the memory allocated.
+     *
+     * @param fileName The name of the file.
+     * @param startTime The time the reading started, in nanoseconds.
+     * @param allocatedBefore The bytes allocated by this thread before the reading started.
+     * @param chunkAllocated The bytes allocated by the threads parsing the chunks.
+     */
+    private void report(String fileName, long startTime, long allocatedBefore, long chunkAllocated) {
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        long allocated = allocatedBytes() - allocatedBefore + chunkAllocated;
+        double megabytes = allocated / (double) (1 << 20);
+        logger.info("DONE READING: " + fileName + " in " + String.format("%.0f", seconds * 1000) + " ms, "
+                + String.format("%.1f", megabytes) + " MB allocated ("
+                + String.format("%.1f", megabytes / seconds) + " MB/s)");
+    }
+
+    /**
+     * Returns the amount of bytes the current thread has allocated, if the JVM can measure it.
+     *
+     * @return The amount of bytes, 0 if it can not be measured.
+     */
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+
+    /**
+     * Reads numbers straight from the bytes of a chunk. Numbers are separated by spaces or tabs,
+     * and lines end with '\n', with or without '\r' in front.
+     */
+    private static class ByteParser {
+        private final MappedByteBuffer buffer;
+        // Lines starting at or after this position belong to the next chunk.
+        private final int chunkEnd;
+        private int position = 0;
+
+        /**
+         * Class constructor.
+         *
+         * @param buffer The bytes of the chunk, and the bytes after it up to the end of its last line.
+         * @param chunkEnd The position where the next chunk starts.
+         */
+        ByteParser(MappedByteBuffer buffer, int chunkEnd) {
+            this.buffer = buffer;
+            this.chunkEnd = chunkEnd;
+        }
+
+        /**
+         * Moves to the start of the next line, past the rest of the current line.
+         */
+        void skipLine() {
+            while (position < buffer.limit() && buffer.get(position) != '\n') {
+                position++;
+            }
+            position++;
+        }
+
+        /**
+         * Moves to the next line that is not empty, if it starts in this chunk.
+         *
+         * @return true if there is a line to read.
+         * @throws IOException if the line does not end before the end of the mapped bytes.
+         */
+        boolean nextLine() throws IOException {
+            while (position < chunkEnd && position < buffer.limit()) {
+                byte next = buffer.get(position);
+                if (next == ' ' || next == '\t' || next == '\r' || next == '\n') {
+                    position++;
+                    continue;
+                }
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Skips spaces and tabs.
+         *
+         * @throws IOException if there are no more bytes.
+         */
+        private void skipSpaces() throws IOException {
+            while (position < buffer.limit()) {
+                byte next = buffer.get(position);
+                if (next != ' ' && next != '\t') {
+                    return;
+                }
+                position++;
+            }
+            throw new IOException("Line is longer than " + MAX_LINE_BYTES + " bytes, or the file ends in a line");
+        }
+
+        /**
+         * Reads an integer.
+         *
+         * @return The integer.
+         * @throws IOException if there is no integer.
+         */
+        int readInt() throws IOException {
+            skipSpaces();
+            boolean negative = buffer.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            int start = position;
+            int value = 0;
+            while (position < buffer.limit()) {
+                int digit = buffer.get(position) - '0';
+                if (digit < 0 || digit > 9) {
+                    break;
+                }
+                value = value * 10 + digit;
+                position++;
+            }
+            if (position == start) {
+                throw new IOException("Expected a number at byte " + position + " of the chunk");
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Reads a decimal number. The digits are read into a long, and divided by a power of ten
+         * at the end, which gives the same double as Double.parseDouble when there are at most
+         * 15 significant digits. Other numbers are parsed by Double.parseDouble.
+         *
+         * @return The number.
+         * @throws IOException if there is no number.
+         */
+        double readDouble() throws IOException {
+            skipSpaces();
+            int start = position;
+            boolean negative = buffer.get(position) == '-';
+            if (negative) {
+                position++;
+            }
+            long digits = 0;
+            int amountDigits = 0;
+            int decimals = -1;
+            while (position < buffer.limit()) {
+                byte next = buffer.get(position);
+                if (next == '.' && decimals == -1) {
+                    decimals = 0;
+                } else if (next >= '0' && next <= '9') {
+                    digits = digits * 10 + (next - '0');
+                    amountDigits++;
+                    if (decimals != -1) {
+                        decimals++;
+                    }
+                } else {
+                    break;
+                }
+                position++;
+            }
+            if (amountDigits == 0) {
+                throw new IOException("Expected a number at byte " + start + " of the chunk");
+            }
+            byte next = position < buffer.limit() ? buffer.get(position) : (byte) '\n';
+            if (amountDigits > 15 || next == 'e' || next == 'E') {
+                return parseSlowly(start);
+            }
+            double value = decimals <= 0 ? digits : digits / POWERS_OF_TEN[decimals];
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses the number starting at a position with Double.parseDouble.
+         *
+         * @param start The position of the number.
+         * @return The number.
+         */
+        private double parseSlowly(int start) {
+            position = start;
+            StringBuilder number = new StringBuilder();
+            while (position < buffer.limit()) {
+                byte next = buffer.get(position);
+                if (next == ' ' || next == '\t' || next == '\r' || next == '\n') {
+                    break;
+                }
+                number.append((char) next);
+                position++;
+            }
+            return Double.parseDouble(number.toString());
+        }
+    }
+}
@@ -0,0 +1,194 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of the road network, written once from the text files so later runs can
+ * start without parsing them. The file is memory mapped when it is read, and each array is
+ * bulk copied out of the mapping, so reading it costs about as much as copying the memory.
+ * <p>
+ * The snapshot file is binary, with every number little-endian:<br>
+ * ------------------------------------------------------------------<br>
+ * MAGIC VERSION flags amountNodes amountEdges (ints)<br>
+ * latitude(0) ... latitude(amountNodes - 1) (doubles)<br>
+ * longitude(0) ... longitude(amountNodes - 1) (doubles)<br>
+ * edgeStart, edgeTarget, travelTime, length, speedLimit (ints)<br>
+ * if flags has INVERTED: the same five arrays for the inverted graph<br>
+ * if flags has POINT_OF_INTEREST_TYPES: the point of interest type of each node (ints)<br>
+ * ------------------------------------------------------------------<br>
+ */
+class GraphSnapshot {
+    // Identifies a snapshot file, the bytes "GRPH".
+    static final int MAGIC = 0x47525048;
+    // The version of the file format.
+    static final int VERSION = 1;
+    // Flag for a snapshot with the inverted graph.
+    static final int INVERTED = 1;
+    // Flag for a snapshot with the point of interest types.
+    static final int POINT_OF_INTEREST_TYPES = 2;
+    // The size of the header in bytes.
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    // The road network.
+    final RoadGraph graph;
+    // The road network with all the edges inverted, null if the snapshot does not have it.
+    final RoadGraph invertedGraph;
+    // The point of interest type of each node, null if the snapshot does not have them.
+    final int[] pointOfInterestTypes;
+
+    /**
+     * Class constructor.
+     *
+     * @param graph The road network.
+     * @param invertedGraph The inverted road network, can be null.
+     * @param pointOfInterestTypes The point of interest type of each node, can be null.
+     */
+    GraphSnapshot(RoadGraph graph, RoadGraph invertedGraph, int[] pointOfInterestTypes) {
+        this.graph = graph;
+        this.invertedGraph = invertedGraph;
+        this.pointOfInterestTypes = pointOfInterestTypes;
+    }
+
+    /**
+     * Writes the snapshot to a file.
+     *
+     * @param fileName The name of the file.
+     * @throws IOException if there was a problem writing to file.
+     */
+    void write(String fileName) throws IOException {
+        int flags = (invertedGraph != null ? INVERTED : 0)
+                | (pointOfInterestTypes != null ? POINT_OF_INTEREST_TYPES : 0);
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            // Everything is written through a buffer of one megabyte.
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(flags).putInt(graph.amountNodes).putInt(graph.amountEdges);
+            for (double value : graph.latitude) {
+                buffer = makeRoom(channel, buffer).putDouble(value);
+            }
+            for (double value : graph.longitude) {
+                buffer = makeRoom(channel, buffer).putDouble(value);
+            }
+            writeEdges(channel, buffer, graph);
+            if (invertedGraph != null) {
+                writeEdges(channel, buffer, invertedGraph);
+            }
+            if (pointOfInterestTypes != null) {
+                writeInts(channel, buffer, pointOfInterestTypes);
+            }
+            writeFully(channel, buffer.flip());
+        }
+    }
+
+    /**
+     * Writes the edge arrays of a graph.
+     *
+     * @param channel The file.
+     * @param buffer The buffer the numbers are written through.
+     * @param roadGraph The graph.
+     * @throws IOException if there was a problem writing to file.
+     */
+    private static void writeEdges(FileChannel channel, ByteBuffer buffer, RoadGraph roadGraph) throws IOException {
+        writeInts(channel, buffer, roadGraph.edgeStart);
+        writeInts(channel, buffer, roadGraph.edgeTarget);
+        writeInts(channel, buffer, roadGraph.travelTime);
+        writeInts(channel, buffer, roadGraph.length);
+        writeInts(channel, buffer, roadGraph.speedLimit);
+    }
+
+    /**
+     * Writes an array of ints.
+     *
+     * @param channel The file.
+     * @param buffer The buffer the numbers are written through.
+     * @param array The array.
+     * @throws IOException if there was a problem writing to file.
+     */
+    private static void writeInts(FileChannel channel, ByteBuffer buffer, int[] array) throws IOException {
+        for (int value : array) {
+            makeRoom(channel, buffer).putInt(value);
+        }
+    }
+
+    /**
+     * Writes the buffer to the file if there is no room for another number.
+     *
+     * @param channel The file.
+     * @param buffer The buffer.
+     * @return The buffer, with room for at least eight bytes.
+     * @throws IOException if there was a problem writing to file.
+     */
+    private static ByteBuffer makeRoom(FileChannel channel, ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < Long.BYTES) {
+            writeFully(channel, buffer.flip());
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    /**
+     * Writes everything in a buffer to a channel.
+     *
+     * @param channel The channel.
+     * @param buffer The buffer.
+     * @throws IOException if there was a problem writing to file.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Reads a snapshot from a file.
+     *
+     * @param fileName The name of the file.
+     * @return The snapshot.
+     * @throws IOException if the file could not be read, or is not a snapshot of this version.
+     */
+    static GraphSnapshot read(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(fileName + " is not a graph snapshot of version " + VERSION);
+            }
+            int flags = header.getInt();
+            int amountNodes = header.getInt();
+            int amountEdges = header.getInt();
+
+            MappedFileReader reader = new MappedFileReader(channel, fileName, HEADER_BYTES);
+            double[] latitude = reader.readDoubles(amountNodes);
+            double[] longitude = reader.readDoubles(amountNodes);
+            RoadGraph graph = readEdges(reader, latitude, longitude, amountEdges);
+            RoadGraph invertedGraph = (flags & INVERTED) != 0
+                    ? readEdges(reader, latitude, longitude, amountEdges) : null;
+            int[] pointOfInterestTypes = (flags & POINT_OF_INTEREST_TYPES) != 0
+                    ? reader.readInts(amountNodes) : null;
+            return new GraphSnapshot(graph, invertedGraph, pointOfInterestTypes);
+        }
+    }
+
+    /**
+     * Reads the edge arrays of a graph.
+     *
+     * @param reader The reader of the snapshot file.
+     * @param latitude The latitude coordinate of each node.
+     * @param longitude The longitude coordinate of each node.
+     * @param amountEdges The amount of edges.
+     * @return The graph.
+     * @throws IOException if the file could not be read.
+     */
+    private static RoadGraph readEdges(MappedFileReader reader, double[] latitude, double[] longitude,
+                                       int amountEdges) throws IOException {
+        int[] edgeStart = reader.readInts(latitude.length + 1);
+        int[] edgeTarget = reader.readInts(amountEdges);
+        int[] travelTime = reader.readInts(amountEdges);
+        int[] length = reader.readInts(amountEdges);
+        int[] speedLimit = reader.readInts(amountEdges);
+        return new RoadGraph(latitude, longitude, edgeStart, edgeTarget, travelTime, length, speedLimit);
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * The graphs and the landmarks of one version of the road network, read together, so a
+ * search never mixes the travel times from before and after an update.
+ * See DijkstrasAlgorithm.currentVersion.
+ */
+class GraphVersion {
+    // The number of the version, the amount of updates before it.
+    final long number;
+    // The road network.
+    final RoadGraph graph;
+    // The road network with all the edges inverted, can be null.
+    final RoadGraph invertedGraph;
+    // The landmarks of the cost metric that was asked for, null if there are none.
+    final Landmarks landmarks;
+
+    /**
+     * Class constructor.
+     *
+     * @param number The number of the version.
+     * @param graph The road network.
+     * @param invertedGraph The inverted road network, can be null.
+     * @param landmarks The landmarks, can be null.
+     */
+    GraphVersion(long number, RoadGraph graph, RoadGraph invertedGraph, Landmarks landmarks) {
+        this.number = number;
+        this.graph = graph;
+        this.invertedGraph = invertedGraph;
+        this.landmarks = landmarks;
+    }
+}
@@ -0,0 +1,127 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of non-negative values, with a fixed size and a precision of about 3 %, in the
+ * same way as an HDR histogram. Values below 64 each have their own bucket, and above that
+ * every power of two is split into 32 buckets of the same width, so a value from a nanosecond
+ * to hours only needs one of about two thousand counters.
+ * Values can be recorded from several threads at the same time.
+ */
+class Histogram {
+    // Values below this have their own bucket.
+    private static final int LINEAR_BUCKETS = 64;
+    // The amount of buckets each power of two above LINEAR_BUCKETS is split into.
+    private static final int SUB_BUCKETS = 32;
+    // Enough buckets for every positive long.
+    private static final int AMOUNT_BUCKETS = LINEAR_BUCKETS + 58 * SUB_BUCKETS;
+
+    // The amount of values in each bucket.
+    private final AtomicLongArray counts = new AtomicLongArray(AMOUNT_BUCKETS);
+    // The amount of values, their sum, and the highest value.
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value The value, at least 0.
+     * @return The index of the bucket.
+     */
+    private static int bucket(long value) {
+        if (value < LINEAR_BUCKETS) {
+            return (int) value;
+        }
+        // The value is shifted down until it has six bits, where the highest one is always set.
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 5;
+        return LINEAR_BUCKETS + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Returns the highest value in a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The highest value.
+     */
+    private static long highestValue(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 1;
+        long subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value The value, negative values are recorded as 0.
+     */
+    void record(long value) {
+        value = Math.max(value, 0);
+        counts.incrementAndGet(bucket(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Returns the amount of recorded values.
+     *
+     * @return The amount.
+     */
+    long count() {
+        return count.get();
+    }
+
+    /**
+     * Returns the sum of the recorded values.
+     *
+     * @return The sum.
+     */
+    long sum() {
+        return sum.get();
+    }
+
+    /**
+     * Returns the highest recorded value.
+     *
+     * @return The highest value, 0 if nothing has been recorded.
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns the average of the recorded values.
+     *
+     * @return The average, 0 if nothing has been recorded.
+     */
+    double mean() {
+        long amount = count.get();
+        return amount == 0 ? 0 : (double) sum.get() / amount;
+    }
+
+    /**
+     * Returns a percentile of the recorded values, rounded up to the highest value in its bucket.
+     *
+     * @param percent The percentile, between 0 and 100.
+     * @return The value, never more than the highest recorded value. 0 if nothing has been recorded.
+     */
+    long percentile(double percent) {
+        long amount = count.get();
+        if (amount == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(percent / 100 * amount));
+        long seen = 0;
+        for (int bucket = 0; bucket < AMOUNT_BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= target) {
+                return Math.min(highestValue(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+}
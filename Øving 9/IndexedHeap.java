@@ -0,0 +1,137 @@
+import java.util.Arrays;
+
+/**
+ * A d-ary heap that knows the position of every node in the heap, so the priority of a
+ * node can be lowered in O(log n) time by moving it up from where it is, instead of
+ * searching through the whole heap for it.
+ */
+class IndexedHeap implements NodePriorityQueue {
+    // Amount of children for each element in the heap.
+    private final int arity;
+    // The node numbers in heap order.
+    private final int[] heapNodes;
+    // The priority of the node at the same position in heapNodes.
+    private final int[] heapPriorities;
+    // The position of each node in the heap, -1 if the node is not in the heap.
+    private final int[] position;
+    // Amount of nodes in the heap.
+    private int size = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param amountNodes The amount of nodes that can be in the heap.
+     * @param arity Amount of children for each element in the heap.
+     */
+    IndexedHeap(int amountNodes, int arity) {
+        this.arity = arity;
+        heapNodes = new int[amountNodes];
+        heapPriorities = new int[amountNodes];
+        position = new int[amountNodes];
+        Arrays.fill(position, -1);
+    }
+
+    @Override
+    public void addOrDecrease(int node, int priority) {
+        int index = position[node];
+        if (index == -1) {
+            index = size++;
+        }
+        siftUp(index, node, priority);
+    }
+
+    @Override
+    public int poll() {
+        int first = heapNodes[0];
+        position[first] = -1;
+        size--;
+        if (size > 0) {
+            siftDown(0, heapNodes[size], heapPriorities[size]);
+        }
+        return first;
+    }
+
+    @Override
+    public int peekPriority() {
+        return heapPriorities[0];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            position[heapNodes[i]] = -1;
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves parents down until the node can be placed at the index.
+     *
+     * @param index The index the node starts at.
+     * @param node The node number.
+     * @param priority The priority of the node.
+     */
+    private void siftUp(int index, int node, int priority) {
+        while (index > 0) {
+            int parent = (index - 1) / arity;
+            if (heapPriorities[parent] <= priority) {
+                break;
+            }
+            place(index, heapNodes[parent], heapPriorities[parent]);
+            index = parent;
+        }
+        place(index, node, priority);
+    }
+
+    /**
+     * Moves the smallest child up until the node can be placed at the index.
+     *
+     * @param index The index the node starts at.
+     * @param node The node number.
+     * @param priority The priority of the node.
+     */
+    private void siftDown(int index, int node, int priority) {
+        while (true) {
+            int firstChild = index * arity + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + arity, size);
+            int smallestChild = firstChild;
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                if (heapPriorities[child] < heapPriorities[smallestChild]) {
+                    smallestChild = child;
+                }
+            }
+            if (heapPriorities[smallestChild] >= priority) {
+                break;
+            }
+            place(index, heapNodes[smallestChild], heapPriorities[smallestChild]);
+            index = smallestChild;
+        }
+        place(index, node, priority);
+    }
+
+    /**
+     * Puts a node at an index in the heap.
+     *
+     * @param index The index in the heap.
+     * @param node The node number.
+     * @param priority The priority of the node.
+     */
+    private void place(int index, int node, int priority) {
+        heapNodes[index] = node;
+        heapPriorities[index] = priority;
+        position[node] = index;
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.Arrays;
+
+/**
+ * The nodes that can be reached from a start node within a travel time budget, and the
+ * travel time to each of them.
+ * <p>
+ * The nodes are in the order the search picked them, so the travel times are sorted, and
+ * the nodes reached within a shorter budget are the first ones in the arrays.
+ */
+class Isochrone {
+    // The starting node´s node number.
+    final int startNodeNumber;
+    // The travel time budget in centiseconds.
+    final int maxTravelTime;
+    // The reachable nodes, closest first.
+    final int[] nodes;
+    // The travel time in centiseconds to each node in nodes.
+    final int[] travelTimes;
+
+    /**
+     * Class constructor.
+     *
+     * @param startNodeNumber The starting node´s node number.
+     * @param maxTravelTime The travel time budget in centiseconds.
+     * @param nodes The reachable nodes, closest first.
+     * @param travelTimes The travel time to each node.
+     */
+    Isochrone(int startNodeNumber, int maxTravelTime, int[] nodes, int[] travelTimes) {
+        this.startNodeNumber = startNodeNumber;
+        this.maxTravelTime = maxTravelTime;
+        this.nodes = nodes;
+        this.travelTimes = travelTimes;
+    }
+
+    /**
+     * Returns the amount of nodes that can be reached within a shorter budget.
+     *
+     * @param travelTime The budget in centiseconds.
+     * @return The amount of nodes, the nodes are the first ones in nodes.
+     */
+    int amountWithin(int travelTime) {
+        // The first node with a longer travel time, found with a binary search.
+        int low = 0;
+        int high = travelTimes.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (travelTimes[middle] <= travelTime) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Puts the reachable nodes into a grid over their bounding box, where each cell has the
+     * shortest travel time to a node in it. This is enough to draw the area, without sending
+     * every node.
+     *
+     * @param latitude The latitude coordinate of each node in the graph.
+     * @param longitude The longitude coordinate of each node in the graph.
+     * @param cellSize The height and width of a cell in meters.
+     * @return The grid.
+     */
+    Grid grid(double[] latitude, double[] longitude, double cellSize) {
+        double minLatitude = Double.POSITIVE_INFINITY;
+        double minLongitude = Double.POSITIVE_INFINITY;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        for (int node : nodes) {
+            minLatitude = Math.min(minLatitude, latitude[node]);
+            minLongitude = Math.min(minLongitude, longitude[node]);
+            maxLatitude = Math.max(maxLatitude, latitude[node]);
+            maxLongitude = Math.max(maxLongitude, longitude[node]);
+        }
+        if (nodes.length == 0) {
+            minLatitude = maxLatitude = minLongitude = maxLongitude = 0;
+        }
+
+        // A degree of latitude is about 111 km, a degree of longitude is shorter away from the equator.
+        double cellHeight = cellSize / 111195;
+        double cellWidth = cellHeight / Math.max(1e-6, Math.cos(Math.toRadians((minLatitude + maxLatitude) / 2)));
+        int rows = (int) ((maxLatitude - minLatitude) / cellHeight) + 1;
+        int columns = (int) ((maxLongitude - minLongitude) / cellWidth) + 1;
+
+        int[] cellTravelTime = new int[rows * columns];
+        Arrays.fill(cellTravelTime, -1);
+        // The nodes are closest first, so the first node in a cell has its shortest travel time.
+        for (int i = 0; i < nodes.length; i++) {
+            int row = (int) ((latitude[nodes[i]] - minLatitude) / cellHeight);
+            int column = (int) ((longitude[nodes[i]] - minLongitude) / cellWidth);
+            int cell = Math.min(row, rows - 1) * columns + Math.min(column, columns - 1);
+            if (cellTravelTime[cell] == -1) {
+                cellTravelTime[cell] = travelTimes[i];
+            }
+        }
+        return new Grid(minLatitude, minLongitude, cellHeight, cellWidth, rows, columns, cellTravelTime);
+    }
+
+    /**
+     * A grid of cells over the reachable area, with the shortest travel time to each cell.
+     */
+    static class Grid {
+        // The south west corner of the grid.
+        final double minLatitude;
+        final double minLongitude;
+        // The size of a cell in degrees.
+        final double cellHeight;
+        final double cellWidth;
+        // Amount of cells from south to north, and from west to east.
+        final int rows;
+        final int columns;
+        // The shortest travel time in centiseconds to a node in each cell, -1 if no node in the cell is reachable.
+        // Cells are numbered row by row from the south west corner.
+        final int[] travelTime;
+
+        /**
+         * Class constructor.
+         *
+         * @param minLatitude The latitude of the south west corner.
+         * @param minLongitude The longitude of the south west corner.
+         * @param cellHeight The height of a cell in degrees.
+         * @param cellWidth The width of a cell in degrees.
+         * @param rows Amount of cells from south to north.
+         * @param columns Amount of cells from west to east.
+         * @param travelTime The shortest travel time to each cell.
+         */
+        Grid(double minLatitude, double minLongitude, double cellHeight, double cellWidth,
+             int rows, int columns, int[] travelTime) {
+            this.minLatitude = minLatitude;
+            this.minLongitude = minLongitude;
+            this.cellHeight = cellHeight;
+            this.cellWidth = cellWidth;
+            this.rows = rows;
+            this.columns = columns;
+            this.travelTime = travelTime;
+        }
+
+        /**
+         * Returns the shortest travel time to a cell.
+         *
+         * @param row The row, 0 is the southernmost.
+         * @param column The column, 0 is the westernmost.
+         * @return The travel time in centiseconds, -1 if no node in the cell is reachable.
+         */
+        int travelTime(int row, int column) {
+            return travelTime[row * columns + column];
+        }
+    }
+}
@@ -0,0 +1,66 @@
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import static java.util.Comparator.comparingInt;
+
+/**
+ * The java.util.PriorityQueue the searches used before, where lowering the priority of a
+ * node means removing it with a linear search and adding it again.
+ * Kept so the other queues can be compared against it.
+ */
+class JavaPriorityQueue implements NodePriorityQueue {
+    // The priority of each node in the queue.
+    private final int[] priority;
+    // The queue of node numbers.
+    private final PriorityQueue<Integer> priorityQueue;
+
+    /**
+     * Class constructor.
+     *
+     * @param amountNodes The amount of nodes that can be in the queue.
+     */
+    JavaPriorityQueue(int amountNodes) {
+        priority = new int[amountNodes];
+        Arrays.fill(priority, Integer.MAX_VALUE);
+        priorityQueue = new PriorityQueue<>(comparingInt(node -> priority[node]));
+    }
+
+    @Override
+    public void addOrDecrease(int node, int newPriority) {
+        if (priority[node] != Integer.MAX_VALUE) {
+            priorityQueue.remove(node);
+        }
+        priority[node] = newPriority;
+        priorityQueue.add(node);
+    }
+
+    @Override
+    public int poll() {
+        int node = priorityQueue.poll();
+        priority[node] = Integer.MAX_VALUE;
+        return node;
+    }
+
+    @Override
+    public int peekPriority() {
+        return priority[priorityQueue.peek()];
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return priorityQueue.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return priorityQueue.size();
+    }
+
+    @Override
+    public void clear() {
+        for (int node : priorityQueue) {
+            priority[node] = Integer.MAX_VALUE;
+        }
+        priorityQueue.clear();
+    }
+}
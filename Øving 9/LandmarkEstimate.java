@@ -0,0 +1,149 @@
+/**
+ * Class that computes the ALT estimate to one goal for many nodes.
+ * Before a search the landmarks that give the best estimate between the start and the goal
+ * are picked, and only those are used during the search. The travel times of the goal are
+ * read once, and the travel times of each node are read as one block.
+ * One instance can only be used by one search at a time.
+ */
+class LandmarkEstimate {
+    // The landmarks the estimates come from.
+    final Landmarks landmarks;
+    // The indexes of the landmarks used for the current goal.
+    private final int[] activeLandmarks;
+    // Amount of landmarks used for the current goal.
+    private int amountActive;
+    // The estimate of each landmark from the start to the goal, used to pick the landmarks.
+    private final int[] startEstimates;
+    // The travel times of the start.
+    private final int[] startTravelTimes;
+    // The travel times of the goal.
+    private final int[] goalTravelTimes;
+    // The travel times of the node being estimated.
+    private final int[] nodeTravelTimes;
+
+    /**
+     * Class constructor.
+     *
+     * @param landmarks The landmarks the estimates come from.
+     */
+    LandmarkEstimate(Landmarks landmarks) {
+        this.landmarks = landmarks;
+        int amountLandmarks = landmarks.landmarks.length;
+        activeLandmarks = new int[amountLandmarks];
+        startEstimates = new int[amountLandmarks];
+        startTravelTimes = new int[2 * amountLandmarks];
+        goalTravelTimes = new int[2 * amountLandmarks];
+        nodeTravelTimes = new int[2 * amountLandmarks];
+    }
+
+    /**
+     * Prepares for estimating the travel time to a goal, using the landmarks that give the
+     * highest estimate from the start to the goal.
+     *
+     * @param startNode The start node of the search.
+     * @param goalNode The goal of the search.
+     * @param maxActive The most landmarks to use, all landmarks are used if it is 0 or less.
+     */
+    void prepare(int startNode, int goalNode, int maxActive) {
+        int amountLandmarks = landmarks.landmarks.length;
+        landmarks.read(goalNode, goalTravelTimes);
+        landmarks.read(startNode, startTravelTimes);
+        System.arraycopy(startTravelTimes, 0, nodeTravelTimes, 0, startTravelTimes.length);
+
+        // Sort the landmarks by their estimate from the start, highest first (insertion sort,
+        // since there are only a few landmarks).
+        for (int i = 0; i < amountLandmarks; i++) {
+            startEstimates[i] = landmarkEstimate(i);
+            int position = i;
+            while (position > 0 && startEstimates[activeLandmarks[position - 1]] < startEstimates[i]) {
+                activeLandmarks[position] = activeLandmarks[position - 1];
+                position--;
+            }
+            activeLandmarks[position] = i;
+        }
+        amountActive = maxActive <= 0 ? amountLandmarks : Math.min(maxActive, amountLandmarks);
+    }
+
+    /**
+     * Returns the highest estimate of the travel time from a node to the goal.
+     * The estimate is never higher than the real travel time.
+     *
+     * @param node The node number.
+     * @return The estimate, at least 0.
+     */
+    int estimate(int node) {
+        landmarks.read(node, nodeTravelTimes);
+        int highestEstimate = 0;
+        for (int a = 0; a < amountActive; a++) {
+            int estimate = landmarkEstimate(activeLandmarks[a]);
+            if (estimate > highestEstimate) {
+                highestEstimate = estimate;
+            }
+        }
+        return highestEstimate;
+    }
+
+    /**
+     * Returns the average potential of a node for bidirectional ALT: the estimate from the node
+     * to the goal minus the estimate from the start to the node. The forward search uses it
+     * as its estimate, and the backward search uses the negated value, so both searches see
+     * the same reduced edge lengths. It is twice the usual average potential, which keeps it
+     * an integer.
+     *
+     * @param node The node number.
+     * @return The potential, can be negative.
+     */
+    int averagePotential(int node) {
+        landmarks.read(node, nodeTravelTimes);
+        int toGoal = 0;
+        int fromStart = 0;
+        for (int a = 0; a < amountActive; a++) {
+            int i = activeLandmarks[a];
+            toGoal = Math.max(toGoal, landmarkEstimate(i));
+            fromStart = Math.max(fromStart, boundFromStart(i));
+        }
+        return toGoal - fromStart;
+    }
+
+    /**
+     * Returns the estimate from one landmark of the travel time from the start to the node
+     * in nodeTravelTimes.
+     *
+     * @param landmarkIndex The index of the landmark.
+     * @return The estimate, can be negative.
+     */
+    private int boundFromStart(int landmarkIndex) {
+        int toIndex = landmarks.landmarks.length + landmarkIndex;
+        int estimate = Integer.MIN_VALUE;
+        // The landmark is behind the start: from landmark to node - from landmark to start.
+        if (nodeTravelTimes[landmarkIndex] != Integer.MAX_VALUE && startTravelTimes[landmarkIndex] != Integer.MAX_VALUE) {
+            estimate = nodeTravelTimes[landmarkIndex] - startTravelTimes[landmarkIndex];
+        }
+        // The landmark is after the node: from start to landmark - from node to landmark.
+        if (startTravelTimes[toIndex] != Integer.MAX_VALUE && nodeTravelTimes[toIndex] != Integer.MAX_VALUE) {
+            estimate = Math.max(estimate, startTravelTimes[toIndex] - nodeTravelTimes[toIndex]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Returns the estimate from one landmark, using the travel times in nodeTravelTimes.
+     * Travel times of unreachable nodes are skipped, since subtracting them would overflow.
+     *
+     * @param landmarkIndex The index of the landmark.
+     * @return The estimate, can be negative.
+     */
+    private int landmarkEstimate(int landmarkIndex) {
+        int toIndex = landmarks.landmarks.length + landmarkIndex;
+        int estimate = Integer.MIN_VALUE;
+        // The landmark is behind the node: from landmark to goal - from landmark to node.
+        if (goalTravelTimes[landmarkIndex] != Integer.MAX_VALUE && nodeTravelTimes[landmarkIndex] != Integer.MAX_VALUE) {
+            estimate = goalTravelTimes[landmarkIndex] - nodeTravelTimes[landmarkIndex];
+        }
+        // The landmark is after the goal: from node to landmark - from goal to landmark.
+        if (nodeTravelTimes[toIndex] != Integer.MAX_VALUE && goalTravelTimes[toIndex] != Integer.MAX_VALUE) {
+            estimate = Math.max(estimate, nodeTravelTimes[toIndex] - goalTravelTimes[toIndex]);
+        }
+        return estimate;
+    }
+}
@@ -0,0 +1,383 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Class that selects landmarks for ALT, so they do not have to be picked by hand.
+ * ALT is fastest when the landmarks lie "behind" the start or the goal of most queries,
+ * which usually means far out at the edges of the map.
+ */
+class LandmarkSelector {
+
+    /**
+     * The ways landmarks can be selected.
+     */
+    enum Strategy {
+        // Each landmark is the node with the longest travel time from the landmarks already selected.
+        FARTHEST,
+        // Each landmark is a leaf of a shortest path tree in the part where the current landmarks
+        // give the worst estimates (Goldberg and Werneck).
+        AVOID,
+        // The map is divided into sectors around its center, and each landmark is the node
+        // farthest from the center in its sector.
+        PLANAR
+    }
+
+    // Used for the one-to-all searches, and holds the graphs.
+    private final PreprocessedDijkstra preprocessor;
+    // The road network.
+    private final RoadGraph graph;
+    // The road network with all the edges inverted.
+    private final RoadGraph invertedGraph;
+    // Used to pick start nodes.
+    private final Random random;
+
+    /**
+     * Class constructor.
+     *
+     * @param preprocessor Preprocessor with both the graph and the inverted graph read.
+     * @param seed Seed for the random start nodes.
+     */
+    LandmarkSelector(PreprocessedDijkstra preprocessor, long seed) {
+        this.preprocessor = preprocessor;
+        this.graph = preprocessor.graph;
+        this.invertedGraph = preprocessor.invertedGraph;
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Selects landmarks with a strategy.
+     *
+     * @param strategy The strategy to use.
+     * @param amount The amount of landmarks to select.
+     * @return The node numbers of the landmarks.
+     */
+    int[] select(Strategy strategy, int amount) {
+        switch (strategy) {
+            case FARTHEST:
+                return farthest(amount);
+            case AVOID:
+                return avoid(amount);
+            default:
+                return planar(amount);
+        }
+    }
+
+    /**
+     * Selects landmarks that are as far from each other as possible. The first landmark is the
+     * node farthest from a random node, and each of the next is the node with the longest
+     * travel time from its closest landmark.
+     * Only nodes that can be reached from the random node are used, so a landmark is never on
+     * a small island that is not connected to the rest of the network.
+     *
+     * @param amount The amount of landmarks to select.
+     * @return The node numbers of the landmarks.
+     */
+    int[] farthest(int amount) {
+        int[] travelTimes = new int[graph.amountNodes];
+        preprocessor.dijkstra(randomNode(), graph, travelTimes);
+        boolean[] inNetwork = new boolean[graph.amountNodes];
+        for (int node = 0; node < graph.amountNodes; node++) {
+            inNetwork[node] = travelTimes[node] != Integer.MAX_VALUE;
+        }
+
+        // Travel time from the closest landmark, starting with the random node as the only "landmark".
+        int[] closestLandmark = travelTimes.clone();
+        int[] landmarks = new int[amount];
+        for (int i = 0; i < amount; i++) {
+            landmarks[i] = farthestNode(closestLandmark, inNetwork);
+            preprocessor.dijkstra(landmarks[i], graph, travelTimes);
+            for (int node = 0; node < graph.amountNodes; node++) {
+                // The random node is not a landmark, so it is forgotten after the first landmark.
+                if (i == 0 || travelTimes[node] < closestLandmark[node]) {
+                    closestLandmark[node] = travelTimes[node];
+                }
+            }
+        }
+        return landmarks;
+    }
+
+    /**
+     * Returns the node in the network with the longest travel time, where nodes that can not
+     * be reached count as the farthest.
+     *
+     * @param travelTimes The travel time of every node.
+     * @param inNetwork Which nodes can be selected.
+     * @return The node number.
+     */
+    private int farthestNode(int[] travelTimes, boolean[] inNetwork) {
+        int farthest = -1;
+        for (int node = 0; node < travelTimes.length; node++) {
+            if (inNetwork[node] && (farthest == -1 || travelTimes[node] > travelTimes[farthest])) {
+                farthest = node;
+            }
+        }
+        return farthest;
+    }
+
+    /**
+     * Selects landmarks with the avoid heuristic. For each new landmark a shortest path tree is
+     * made from a random root, and each node gets the weight travel time - estimate from the
+     * root, which is how much the current landmarks underestimate it. The size of a node is the
+     * sum of the weights below it in the tree, or 0 if there is a landmark below it.
+     * Starting at the root and always going to the child with the largest size ends at a leaf,
+     * which becomes the new landmark, since it covers the region the current landmarks miss.
+     *
+     * @param amount The amount of landmarks to select.
+     * @return The node numbers of the landmarks.
+     */
+    int[] avoid(int amount) {
+        int amountNodes = graph.amountNodes;
+        int[] landmarks = new int[amount];
+        int[][] fromLandmark = new int[amount][];
+        int[][] toLandmark = new int[amount][];
+        boolean[] isLandmark = new boolean[amountNodes];
+
+        int[] travelTimes = new int[amountNodes];
+        int[] previousNodes = new int[amountNodes];
+        long[] size = new long[amountNodes];
+        boolean[] hasLandmarkBelow = new boolean[amountNodes];
+        int[] childStart = new int[amountNodes + 1];
+        int[] children = new int[amountNodes];
+
+        int selected = 0;
+        int attempts = 0;
+        while (selected < amount) {
+            int landmark;
+            if (selected == 0) {
+                landmark = farthest(1)[0];
+            } else {
+                int root = randomNode();
+                preprocessor.dijkstra(root, graph, travelTimes, previousNodes);
+                long[] order = reachedInOrder(travelTimes);
+
+                for (long entry : order) {
+                    int node = (int) entry;
+                    size[node] = travelTimes[node] - lowerBound(root, node, fromLandmark, toLandmark, selected);
+                    hasLandmarkBelow[node] = isLandmark[node];
+                }
+                // Go through the tree from the leaves up, adding the size of each node to its parent.
+                for (int i = order.length - 1; i >= 0; i--) {
+                    int node = (int) order[i];
+                    int parent = previousNodes[node];
+                    if (parent == -1) {
+                        continue;
+                    }
+                    if (hasLandmarkBelow[node]) {
+                        size[node] = 0;
+                        hasLandmarkBelow[parent] = true;
+                    } else {
+                        size[parent] += size[node];
+                    }
+                }
+
+                // Children of each node in the tree, in the same layout as the edges of a RoadGraph.
+                Arrays.fill(childStart, 0);
+                for (long entry : order) {
+                    int parent = previousNodes[(int) entry];
+                    if (parent != -1) {
+                        childStart[parent + 1]++;
+                    }
+                }
+                for (int node = 0; node < amountNodes; node++) {
+                    childStart[node + 1] += childStart[node];
+                }
+                int[] nextChild = Arrays.copyOf(childStart, amountNodes);
+                for (long entry : order) {
+                    int parent = previousNodes[(int) entry];
+                    if (parent != -1) {
+                        children[nextChild[parent]++] = (int) entry;
+                    }
+                }
+
+                landmark = root;
+                while (true) {
+                    int largestChild = -1;
+                    for (int i = childStart[landmark]; i < childStart[landmark + 1]; i++) {
+                        int child = children[i];
+                        if (!hasLandmarkBelow[child] && size[child] > 0
+                                && (largestChild == -1 || size[child] > size[largestChild])) {
+                            largestChild = child;
+                        }
+                    }
+                    if (largestChild == -1) {
+                        break;
+                    }
+                    landmark = largestChild;
+                }
+                // The root may already be covered by the landmarks, so try another root a few times.
+                if (isLandmark[landmark] || (landmark == root && attempts++ < 10)) {
+                    continue;
+                }
+            }
+            isLandmark[landmark] = true;
+            landmarks[selected] = landmark;
+            fromLandmark[selected] = new int[amountNodes];
+            toLandmark[selected] = new int[amountNodes];
+            preprocessor.dijkstra(landmark, graph, fromLandmark[selected]);
+            preprocessor.dijkstra(landmark, invertedGraph, toLandmark[selected]);
+            selected++;
+            attempts = 0;
+        }
+        return landmarks;
+    }
+
+    /**
+     * Returns the nodes that were reached, sorted by travel time. Each entry is the travel time
+     * and the node number packed into one long, and the node number is the lower half.
+     *
+     * @param travelTimes The travel time of every node.
+     * @return The sorted entries.
+     */
+    private static long[] reachedInOrder(int[] travelTimes) {
+        int amountReached = 0;
+        for (int travelTime : travelTimes) {
+            if (travelTime != Integer.MAX_VALUE) {
+                amountReached++;
+            }
+        }
+        long[] order = new long[amountReached];
+        int i = 0;
+        for (int node = 0; node < travelTimes.length; node++) {
+            if (travelTimes[node] != Integer.MAX_VALUE) {
+                order[i++] = ((long) travelTimes[node] << 32) | node;
+            }
+        }
+        Arrays.sort(order);
+        return order;
+    }
+
+    /**
+     * Returns the ALT estimate of the travel time between two nodes from the first landmarks.
+     *
+     * @param from The node the travel time is from.
+     * @param to The node the travel time is to.
+     * @param fromLandmark Travel time from each landmark to every node.
+     * @param toLandmark Travel time from every node to each landmark.
+     * @param amountLandmarks The amount of landmarks to use.
+     * @return The highest estimate, at least 0.
+     */
+    private static int lowerBound(int from, int to, int[][] fromLandmark, int[][] toLandmark, int amountLandmarks) {
+        int highestEstimate = 0;
+        for (int i = 0; i < amountLandmarks; i++) {
+            int[] fromL = fromLandmark[i];
+            int[] toL = toLandmark[i];
+            if (fromL[from] != Integer.MAX_VALUE && fromL[to] != Integer.MAX_VALUE) {
+                highestEstimate = Math.max(highestEstimate, fromL[to] - fromL[from]);
+            }
+            if (toL[from] != Integer.MAX_VALUE && toL[to] != Integer.MAX_VALUE) {
+                highestEstimate = Math.max(highestEstimate, toL[from] - toL[to]);
+            }
+        }
+        return highestEstimate;
+    }
+
+    /**
+     * Selects landmarks by dividing the map into equal sectors around the center of all nodes,
+     * and picking the node farthest from the center in each sector. Only the coordinates are
+     * used, so no searches are needed. Sectors without nodes get no landmark.
+     *
+     * @param amount The amount of landmarks to select.
+     * @return The node numbers of the landmarks.
+     */
+    int[] planar(int amount) {
+        double centerLatitude = 0;
+        double centerLongitude = 0;
+        for (int node = 0; node < graph.amountNodes; node++) {
+            centerLatitude += graph.latitude[node];
+            centerLongitude += graph.longitude[node];
+        }
+        centerLatitude /= graph.amountNodes;
+        centerLongitude /= graph.amountNodes;
+        // A degree of longitude is shorter than a degree of latitude away from the equator.
+        double longitudeScale = Math.cos(Math.toRadians(centerLatitude));
+
+        int[] landmarks = new int[amount];
+        double[] farthestDistance = new double[amount];
+        Arrays.fill(landmarks, -1);
+        for (int node = 0; node < graph.amountNodes; node++) {
+            // Nodes without edges are usually not part of the road network.
+            if (graph.edgeStart[node] == graph.edgeStart[node + 1]) {
+                continue;
+            }
+            double y = graph.latitude[node] - centerLatitude;
+            double x = (graph.longitude[node] - centerLongitude) * longitudeScale;
+            int sector = (int) ((Math.atan2(y, x) + Math.PI) / (2 * Math.PI) * amount);
+            sector = Math.min(sector, amount - 1);
+            double distance = x * x + y * y;
+            if (landmarks[sector] == -1 || distance > farthestDistance[sector]) {
+                landmarks[sector] = node;
+                farthestDistance[sector] = distance;
+            }
+        }
+        return Arrays.stream(landmarks).filter(node -> node != -1).toArray();
+    }
+
+    /**
+     * Returns a random node that has at least one edge.
+     *
+     * @return The node number.
+     */
+    private int randomNode() {
+        while (true) {
+            int node = random.nextInt(graph.amountNodes);
+            if (graph.edgeStart[node] != graph.edgeStart[node + 1]) {
+                return node;
+            }
+        }
+    }
+
+    /**
+     * Preprocesses the landmarks and returns the average amount of nodes ALT picks from the
+     * queue for the queries, which is how much work the landmarks save.
+     *
+     * @param landmarks The node numbers of the landmarks.
+     * @param startNodes The starting node of each query.
+     * @param endNodes The ending node of each query.
+     * @return The average amount of nodes picked per query.
+     */
+    double averageNodesPicked(int[] landmarks, int[] startNodes, int[] endNodes) {
+        preprocessor.preprocess(landmarks);
+        AltAlgorithm altAlgorithm = new AltAlgorithm();
+        altAlgorithm.graph = graph;
+        altAlgorithm.landmarks = preprocessor.landmarks;
+        SearchContext context = altAlgorithm.newSearchContext(graph.amountNodes);
+        long nodesPicked = 0;
+        for (int i = 0; i < startNodes.length; i++) {
+            altAlgorithm.ALT(startNodes[i], endNodes[i], context);
+            nodesPicked += context.nodesPicked;
+        }
+        return (double) nodesPicked / startNodes.length;
+    }
+
+    /**
+     * Main method - Compares the strategies on random queries.
+     *
+     * @param args String[], optionally the amount of landmarks (4 by default).
+     */
+    public static void main(String[] args) {
+        int amountLandmarks = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        PreprocessedDijkstra pd = new PreprocessedDijkstra();
+        pd.readNodeFile("noder.txt");
+        pd.readEdgeFile("kanter.txt");
+        pd.readEdgeFileInverted("kanter.txt");
+
+        LandmarkSelector selector = new LandmarkSelector(pd, 1);
+        int amountQueries = 100;
+        int[] startNodes = new int[amountQueries];
+        int[] endNodes = new int[amountQueries];
+        for (int i = 0; i < amountQueries; i++) {
+            startNodes[i] = selector.randomNode();
+            endNodes[i] = selector.randomNode();
+        }
+
+        for (Strategy strategy : Strategy.values()) {
+            long startTime = System.currentTimeMillis();
+            int[] landmarks = selector.select(strategy, amountLandmarks);
+            long executionTime = System.currentTimeMillis() - startTime;
+            System.out.println(strategy + " " + Arrays.toString(landmarks));
+            System.out.println("Selection time in milliseconds: " + executionTime);
+            System.out.println("Average amount of processed nodes: "
+                    + selector.averageNodesPicked(landmarks, startNodes, endNodes));
+        }
+    }
+}
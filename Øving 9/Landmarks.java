@@ -0,0 +1,330 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Class that holds the preprocessed travel times between the landmarks and every node.
+ * The tables are either arrays in memory, or views into a memory mapped landmark file,
+ * which can be searched right away without reading or parsing the file first.
+ * <p>
+ * The travel times are stored node by node, so everything ALT needs for one node lies next
+ * to each other: the travel time from each landmark to the node, followed by the travel time
+ * from the node to each landmark.
+ * <p>
+ * The landmark file is binary, with every number as a little-endian int:<br>
+ * ------------------------------------------------------------------<br>
+ * MAGIC VERSION amountLandmarks amountNodes<br>
+ * landmark(1) ... landmark(n)<br>
+ * node 0: fromLandmark(1) ... fromLandmark(n) toLandmark(1) ... toLandmark(n)<br>
+ * node 1: fromLandmark(1) ... fromLandmark(n) toLandmark(1) ... toLandmark(n)<br>
+ * ...<br>
+ * ------------------------------------------------------------------<br>
+ * Unreachable nodes have the travel time Integer.MAX_VALUE.
+ */
+class Landmarks {
+    // Identifies a landmark file, the bytes "LMRK".
+    static final int MAGIC = 0x4C4D524B;
+    // The version of the file format.
+    static final int VERSION = 2;
+    // The largest amount of bytes in one chunk of the table, since one mapping can be at most 2 GB.
+    private static final long MAX_CHUNK_BYTES = 1L << 30;
+
+    // The node numbers of the landmarks.
+    final int[] landmarks;
+    // Amount of nodes in the graph the landmarks belong to.
+    final int amountNodes;
+    // Amount of ints stored for each node, two for each landmark.
+    private final int nodeSize;
+    // The table split into chunks of the same amount of nodes.
+    private final IntBuffer[] chunks;
+    // The amount of nodes in a chunk is 2 to the power of chunkShift.
+    private final int chunkShift;
+
+    /**
+     * Class constructor.
+     *
+     * @param landmarks The node numbers of the landmarks.
+     * @param amountNodes Amount of nodes in the graph.
+     * @param chunks The table split into chunks.
+     * @param chunkShift The amount of nodes in a chunk is 2 to the power of chunkShift.
+     */
+    private Landmarks(int[] landmarks, int amountNodes, IntBuffer[] chunks, int chunkShift) {
+        this.landmarks = landmarks;
+        this.amountNodes = amountNodes;
+        this.nodeSize = 2 * landmarks.length;
+        this.chunks = chunks;
+        this.chunkShift = chunkShift;
+    }
+
+    /**
+     * Returns how many nodes fit in a chunk, as a power of two.
+     *
+     * @param amountLandmarks The amount of landmarks.
+     * @return The amount of nodes in a chunk is 2 to the power of this.
+     */
+    private static int chunkShift(int amountLandmarks) {
+        long nodeBytes = 2L * Integer.BYTES * amountLandmarks;
+        return 63 - Long.numberOfLeadingZeros(MAX_CHUNK_BYTES / nodeBytes);
+    }
+
+    /**
+     * Makes landmarks from tables in memory, one table for each landmark.
+     *
+     * @param landmarks The node numbers of the landmarks.
+     * @param fromLandmark Travel time from each landmark to every node.
+     * @param toLandmark Travel time from every node to each landmark.
+     * @return The landmarks.
+     */
+    static Landmarks fromArrays(int[] landmarks, int[][] fromLandmark, int[][] toLandmark) {
+        int amountNodes = fromLandmark[0].length;
+        int amountLandmarks = landmarks.length;
+        int chunkShift = chunkShift(amountLandmarks);
+        int amountChunks = (int) ((amountNodes + (1L << chunkShift) - 1) >> chunkShift);
+        IntBuffer[] chunks = new IntBuffer[amountChunks];
+        for (int chunk = 0; chunk < amountChunks; chunk++) {
+            int firstNode = chunk << chunkShift;
+            int lastNode = (int) Math.min(amountNodes, (long) (chunk + 1) << chunkShift);
+            int[] table = new int[(lastNode - firstNode) * 2 * amountLandmarks];
+            int index = 0;
+            for (int node = firstNode; node < lastNode; node++) {
+                for (int i = 0; i < amountLandmarks; i++) {
+                    table[index++] = fromLandmark[i][node];
+                }
+                for (int i = 0; i < amountLandmarks; i++) {
+                    table[index++] = toLandmark[i][node];
+                }
+            }
+            chunks[chunk] = IntBuffer.wrap(table);
+        }
+        return new Landmarks(landmarks, amountNodes, chunks, chunkShift);
+    }
+
+    /**
+     * Copies the travel times of a node into an array: first from each landmark to the node,
+     * then from the node to each landmark.
+     *
+     * @param node The node number.
+     * @param destination Array with room for two travel times per landmark.
+     */
+    void read(int node, int[] destination) {
+        chunks[node >>> chunkShift].get(indexInChunk(node), destination, 0, nodeSize);
+    }
+
+    /**
+     * Returns the index of the first travel time of a node in its chunk.
+     *
+     * @param node The node number.
+     * @return The index.
+     */
+    private int indexInChunk(int node) {
+        return (node & ((1 << chunkShift) - 1)) * nodeSize;
+    }
+
+    /**
+     * Returns the travel time from a landmark to a node.
+     *
+     * @param landmarkIndex The index of the landmark in landmarks.
+     * @param node The node number.
+     * @return The travel time, Integer.MAX_VALUE if the node can not be reached.
+     */
+    int fromLandmark(int landmarkIndex, int node) {
+        return chunks[node >>> chunkShift].get(indexInChunk(node) + landmarkIndex);
+    }
+
+    /**
+     * Returns the travel time from a node to a landmark.
+     *
+     * @param landmarkIndex The index of the landmark in landmarks.
+     * @param node The node number.
+     * @return The travel time, Integer.MAX_VALUE if the landmark can not be reached.
+     */
+    int toLandmark(int landmarkIndex, int node) {
+        return chunks[node >>> chunkShift].get(indexInChunk(node) + landmarks.length + landmarkIndex);
+    }
+
+    /**
+     * Makes landmarks that are valid after some edges have got a lower cost.
+     * <p>
+     * A higher cost never makes an estimate too high, since the travel times in the table are
+     * then still lower bounds, so only the lower costs have to be repaired. The travel times
+     * that get lower are found with Dijkstra´s algorithm started from the ends of the edges
+     * that got cheaper, which only picks the nodes whose travel time changes.
+     * The table is copied before it is changed, so searches using these landmarks are not
+     * disturbed, and nothing is copied if no travel time changes.
+     *
+     * @param graph The graph with the new costs.
+     * @param invertedGraph The inverted graph with the new costs.
+     * @param weights The new cost of each edge in graph.
+     * @param invertedWeights The new cost of each edge in invertedGraph.
+     * @param amountDecreased The amount of edges that got a lower cost.
+     * @param fromNode The node each edge with a lower cost goes from.
+     * @param toNode The node each edge with a lower cost goes to.
+     * @param newCost The new cost of each edge with a lower cost.
+     * @param priorityQueue Empty queue with room for every node.
+     * @return The repaired landmarks, or these landmarks if no travel time changes.
+     */
+    Landmarks repair(RoadGraph graph, RoadGraph invertedGraph, int[] weights, int[] invertedWeights,
+                     int amountDecreased, int[] fromNode, int[] toNode, int[] newCost,
+                     NodePriorityQueue priorityQueue) {
+        boolean changed = false;
+        for (int i = 0; i < amountDecreased && !changed; i++) {
+            for (int landmark = 0; landmark < landmarks.length && !changed; landmark++) {
+                changed = improves(fromLandmark(landmark, fromNode[i]), newCost[i], fromLandmark(landmark, toNode[i]))
+                        || improves(toLandmark(landmark, toNode[i]), newCost[i], toLandmark(landmark, fromNode[i]));
+            }
+        }
+        if (!changed) {
+            return this;
+        }
+
+        int[][] fromLandmarkTable = new int[landmarks.length][amountNodes];
+        int[][] toLandmarkTable = new int[landmarks.length][amountNodes];
+        for (int node = 0; node < amountNodes; node++) {
+            for (int landmark = 0; landmark < landmarks.length; landmark++) {
+                fromLandmarkTable[landmark][node] = fromLandmark(landmark, node);
+                toLandmarkTable[landmark][node] = toLandmark(landmark, node);
+            }
+        }
+        for (int landmark = 0; landmark < landmarks.length; landmark++) {
+            // The travel time from the landmark, along the edges.
+            int[] travelTimes = fromLandmarkTable[landmark];
+            for (int i = 0; i < amountDecreased; i++) {
+                if (improves(travelTimes[fromNode[i]], newCost[i], travelTimes[toNode[i]])) {
+                    travelTimes[toNode[i]] = travelTimes[fromNode[i]] + newCost[i];
+                    priorityQueue.addOrDecrease(toNode[i], travelTimes[toNode[i]]);
+                }
+            }
+            propagate(graph, weights, travelTimes, priorityQueue);
+            // The travel time to the landmark, along the inverted edges.
+            travelTimes = toLandmarkTable[landmark];
+            for (int i = 0; i < amountDecreased; i++) {
+                if (improves(travelTimes[toNode[i]], newCost[i], travelTimes[fromNode[i]])) {
+                    travelTimes[fromNode[i]] = travelTimes[toNode[i]] + newCost[i];
+                    priorityQueue.addOrDecrease(fromNode[i], travelTimes[fromNode[i]]);
+                }
+            }
+            propagate(invertedGraph, invertedWeights, travelTimes, priorityQueue);
+        }
+        return fromArrays(landmarks, fromLandmarkTable, toLandmarkTable);
+    }
+
+    /**
+     * Checks if an edge gives a node a lower travel time.
+     *
+     * @param travelTime The travel time to the node the edge goes from.
+     * @param cost The cost of the edge.
+     * @param currentTravelTime The travel time to the node the edge goes to.
+     * @return true if the travel time through the edge is lower.
+     */
+    private static boolean improves(int travelTime, int cost, int currentTravelTime) {
+        return travelTime != Integer.MAX_VALUE && travelTime + cost < currentTravelTime;
+    }
+
+    /**
+     * Runs Dijkstra´s algorithm from the nodes in the queue, and lowers the travel times of the
+     * nodes that can be reached quicker through them.
+     *
+     * @param graph The graph.
+     * @param weights The cost of each edge in the graph.
+     * @param travelTimes The travel times, changed where they get lower.
+     * @param priorityQueue The queue with the nodes whose travel time was lowered, empty afterwards.
+     */
+    private static void propagate(RoadGraph graph, int[] weights, int[] travelTimes, NodePriorityQueue priorityQueue) {
+        while (!priorityQueue.isEmpty()) {
+            int currentNode = priorityQueue.poll();
+            for (int edge = graph.edgeStart[currentNode]; edge < graph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = graph.edgeTarget[edge];
+                if (improves(travelTimes[currentNode], weights[edge], travelTimes[toNode])) {
+                    travelTimes[toNode] = travelTimes[currentNode] + weights[edge];
+                    priorityQueue.addOrDecrease(toNode, travelTimes[toNode]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the landmarks to a binary landmark file.
+     *
+     * @param fileName The name of the file.
+     * @throws IOException if there was a problem writing to file.
+     */
+    void write(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * (4 + landmarks.length))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(landmarks.length).putInt(amountNodes);
+            for (int landmark : landmarks) {
+                header.putInt(landmark);
+            }
+            writeFully(channel, header.flip());
+
+            // The table is written through a buffer of one megabyte.
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+            for (IntBuffer chunk : chunks) {
+                for (int i = 0; i < chunk.limit(); i++) {
+                    if (!buffer.hasRemaining()) {
+                        writeFully(channel, buffer.flip());
+                        buffer.clear();
+                    }
+                    buffer.putInt(chunk.get(i));
+                }
+            }
+            writeFully(channel, buffer.flip());
+        }
+    }
+
+    /**
+     * Writes everything remaining in a buffer to a channel.
+     *
+     * @param channel The channel to write to.
+     * @param buffer The buffer to write.
+     * @throws IOException if there was a problem writing to file.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Opens a binary landmark file by mapping it into memory.
+     * Only the header is read, the table is read by the operating system when it is used.
+     *
+     * @param fileName The name of the file.
+     * @return The landmarks in the file.
+     * @throws IOException if the file could not be read or is not a landmark file.
+     */
+    static Landmarks map(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, Integer.BYTES * 4)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException(fileName + " is not a landmark file of version " + VERSION);
+            }
+            int amountLandmarks = header.getInt();
+            int amountNodes = header.getInt();
+
+            int[] landmarks = new int[amountLandmarks];
+            channel.map(FileChannel.MapMode.READ_ONLY, Integer.BYTES * 4, (long) Integer.BYTES * amountLandmarks)
+                    .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(landmarks);
+
+            int chunkShift = chunkShift(amountLandmarks);
+            long nodeBytes = 2L * Integer.BYTES * amountLandmarks;
+            int amountChunks = (int) ((amountNodes + (1L << chunkShift) - 1) >> chunkShift);
+            IntBuffer[] chunks = new IntBuffer[amountChunks];
+            long position = Integer.BYTES * (4L + amountLandmarks);
+            for (int chunk = 0; chunk < amountChunks; chunk++) {
+                long nodesInChunk = Math.min(amountNodes - ((long) chunk << chunkShift), 1L << chunkShift);
+                chunks[chunk] = channel.map(FileChannel.MapMode.READ_ONLY, position, nodesInChunk * nodeBytes)
+                        .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+                position += nodesInChunk * nodeBytes;
+            }
+            return new Landmarks(landmarks, amountNodes, chunks, chunkShift);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.util.Arrays;
+
+/**
+ * A binary heap that never moves a node when its priority is lowered. The node is added
+ * again with the new priority, and the old entry is skipped when it reaches the top.
+ * Each entry is the priority and the node number packed into one long, so comparing
+ * two entries is comparing two longs.
+ */
+class LazyDeletionHeap implements NodePriorityQueue {
+    // The newest priority of each node in the heap, Integer.MAX_VALUE if it is not in the heap.
+    private final int[] priority;
+    // The entries in heap order, including old entries.
+    private long[] heap = new long[16];
+    // Amount of entries in the heap.
+    private int size = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param amountNodes The amount of nodes that can be in the heap.
+     */
+    LazyDeletionHeap(int amountNodes) {
+        priority = new int[amountNodes];
+        Arrays.fill(priority, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void addOrDecrease(int node, int newPriority) {
+        if (newPriority >= priority[node]) {
+            return;
+        }
+        priority[node] = newPriority;
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        // The priority is in the high bits, so entries are ordered by priority first.
+        long entry = ((long) newPriority << 32) | (node & 0xFFFFFFFFL);
+        int index = size++;
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= entry) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = entry;
+    }
+
+    @Override
+    public int poll() {
+        removeOldEntries();
+        int node = (int) removeFirst();
+        priority[node] = Integer.MAX_VALUE;
+        return node;
+    }
+
+    @Override
+    public int peekPriority() {
+        removeOldEntries();
+        return (int) (heap[0] >> 32);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        removeOldEntries();
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            priority[(int) heap[i]] = Integer.MAX_VALUE;
+        }
+        size = 0;
+    }
+
+    /**
+     * Removes entries from the top of the heap until the top entry has the newest priority of its node.
+     */
+    private void removeOldEntries() {
+        while (size > 0 && (int) (heap[0] >> 32) != priority[(int) heap[0]]) {
+            removeFirst();
+        }
+    }
+
+    /**
+     * Removes the first entry from the heap.
+     *
+     * @return The removed entry.
+     */
+    private long removeFirst() {
+        long first = heap[0];
+        long last = heap[--size];
+        int index = 0;
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (heap[child] >= last) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+        return first;
+    }
+}
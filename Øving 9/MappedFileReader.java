@@ -0,0 +1,84 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Copies little-endian arrays out of a binary file one after another, by memory mapping the
+ * part of the file each array is in. One mapping can be at most 2 GB, so a large array is
+ * mapped and copied in parts of at most MAX_MAPPING_BYTES.
+ */
+class MappedFileReader {
+    // The largest amount of bytes mapped at once, since one mapping can be at most 2 GB.
+    static final long MAX_MAPPING_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    // The name of the file, for the error messages.
+    private final String fileName;
+    // The position in the file of the next array.
+    private long position;
+
+    /**
+     * Class constructor.
+     *
+     * @param channel The file.
+     * @param fileName The name of the file.
+     * @param position The position in the file of the first array.
+     */
+    MappedFileReader(FileChannel channel, String fileName, long position) {
+        this.channel = channel;
+        this.fileName = fileName;
+        this.position = position;
+    }
+
+    /**
+     * Reads an array of ints, mapping at most MAX_MAPPING_BYTES at a time.
+     *
+     * @param amount The length of the array.
+     * @return The array.
+     * @throws IOException if the file could not be read.
+     */
+    int[] readInts(int amount) throws IOException {
+        int[] array = new int[amount];
+        int perMapping = (int) (MAX_MAPPING_BYTES / Integer.BYTES);
+        for (int start = 0; start < amount; start += perMapping) {
+            int count = Math.min(perMapping, amount - start);
+            map((long) count * Integer.BYTES).asIntBuffer().get(array, start, count);
+        }
+        return array;
+    }
+
+    /**
+     * Reads an array of doubles, mapping at most MAX_MAPPING_BYTES at a time.
+     *
+     * @param amount The length of the array.
+     * @return The array.
+     * @throws IOException if the file could not be read.
+     */
+    double[] readDoubles(int amount) throws IOException {
+        double[] array = new double[amount];
+        int perMapping = (int) (MAX_MAPPING_BYTES / Double.BYTES);
+        for (int start = 0; start < amount; start += perMapping) {
+            int count = Math.min(perMapping, amount - start);
+            map((long) count * Double.BYTES).asDoubleBuffer().get(array, start, count);
+        }
+        return array;
+    }
+
+    /**
+     * Maps the next bytes of the file.
+     *
+     * @param bytes The amount of bytes.
+     * @return The mapped bytes.
+     * @throws IOException if the file is too short.
+     */
+    private ByteBuffer map(long bytes) throws IOException {
+        if (position + bytes > channel.size()) {
+            throw new IOException(fileName + " ends before all the arrays are read");
+        }
+        ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, bytes)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        position += bytes;
+        return mapped;
+    }
+}
@@ -0,0 +1,47 @@
+/**
+ * Priority queue of node numbers, where the node with the lowest priority is picked first.
+ * A node is only in the queue once, and its priority can be lowered while it is in the queue.
+ */
+interface NodePriorityQueue {
+
+    /**
+     * Adds a node to the queue, or lowers its priority if it already is in the queue.
+     *
+     * @param node The node number.
+     * @param priority The new priority of the node, lower than any priority it had before.
+     */
+    void addOrDecrease(int node, int priority);
+
+    /**
+     * Removes the node with the lowest priority from the queue.
+     *
+     * @return The node number of the removed node.
+     */
+    int poll();
+
+    /**
+     * Returns the lowest priority in the queue, without removing the node.
+     *
+     * @return The lowest priority, the queue must not be empty.
+     */
+    int peekPriority();
+
+    /**
+     * Checks if there are no more nodes in the queue.
+     *
+     * @return true if the queue is empty.
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns the amount of entries in the queue, counted by SearchMetrics.
+     *
+     * @return The amount of entries, including old entries the queue has not removed yet.
+     */
+    int size();
+
+    /**
+     * Removes all nodes from the queue.
+     */
+    void clear();
+}
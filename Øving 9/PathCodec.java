@@ -0,0 +1,141 @@
+/**
+ * Compact encoding of a path, for storing many paths or sending them.
+ * <p>
+ * Nodes next to each other in a path usually have node numbers close to each other, so each
+ * node is stored as the difference from the node before it. The differences are zigzag
+ * encoded, so small negative and positive differences are both small numbers, and written as
+ * varints with seven bits in each byte, where the highest bit tells if more bytes follow.
+ * Most nodes then take one or two bytes instead of four.
+ * <p>
+ * The format is: amount of nodes, first node, difference to the second node, ... (varints)
+ */
+class PathCodec {
+
+    /**
+     * Encodes a path.
+     *
+     * @param path The node numbers in the path.
+     * @param length The amount of nodes, the first ones in path.
+     * @return The encoded path.
+     */
+    static byte[] encode(int[] path, int length) {
+        // The size is found first, so the bytes are written straight into an array of the right size.
+        int size = varintSize(length);
+        int previous = 0;
+        for (int i = 0; i < length; i++) {
+            size += varintSize(zigzag(path[i] - previous));
+            previous = path[i];
+        }
+        byte[] encoded = new byte[size];
+        int position = writeVarint(encoded, 0, length);
+        previous = 0;
+        for (int i = 0; i < length; i++) {
+            position = writeVarint(encoded, position, zigzag(path[i] - previous));
+            previous = path[i];
+        }
+        return encoded;
+    }
+
+    /**
+     * Returns the amount of nodes in an encoded path.
+     *
+     * @param encoded The encoded path.
+     * @return The amount of nodes.
+     */
+    static int length(byte[] encoded) {
+        int value = 0;
+        for (int position = 0, shift = 0; ; position++, shift += 7) {
+            value |= (encoded[position] & 0x7F) << shift;
+            if (encoded[position] >= 0) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * Decodes a path into an array.
+     *
+     * @param encoded The encoded path.
+     * @param destination Array with room for every node in the path, see length.
+     * @return The amount of nodes, the first ones in destination.
+     */
+    static int decode(byte[] encoded, int[] destination) {
+        int length = -1;
+        int node = 0;
+        int index = -1;
+        int value = 0;
+        int shift = 0;
+        for (byte b : encoded) {
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+            if (b < 0) {
+                continue;
+            }
+            // A whole varint has been read, the first one is the length and the others are differences.
+            if (index == -1) {
+                length = value;
+            } else {
+                node += (value >>> 1) ^ -(value & 1);
+                destination[index] = node;
+            }
+            index++;
+            value = 0;
+            shift = 0;
+        }
+        return length;
+    }
+
+    /**
+     * Decodes a path.
+     *
+     * @param encoded The encoded path.
+     * @return The node numbers in the path.
+     */
+    static int[] decode(byte[] encoded) {
+        int[] path = new int[length(encoded)];
+        decode(encoded, path);
+        return path;
+    }
+
+    /**
+     * Maps a signed number to an unsigned one, 0 -1 1 -2 2 ... becomes 0 1 2 3 4 ...
+     *
+     * @param value The signed number.
+     * @return The unsigned number.
+     */
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    /**
+     * Returns the amount of bytes a number takes as a varint.
+     *
+     * @param value The number, as unsigned.
+     * @return The amount of bytes, from 1 to 5.
+     */
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Writes a number as a varint.
+     *
+     * @param encoded The array to write to.
+     * @param position The position of the first byte.
+     * @param value The number, as unsigned.
+     * @return The position after the last byte.
+     */
+    private static int writeVarint(byte[] encoded, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            encoded[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        encoded[position++] = (byte) value;
+        return position;
+    }
+}
@@ -0,0 +1,17 @@
+/**
+ * Receives the points of interest a search finds, in the order the search picks them,
+ * so the closest ones can be used before the search is done.
+ */
+interface PointOfInterestListener {
+
+    /**
+     * Called when the search picks a point of interest in one of the categories it looks for.
+     * A node in several categories is given once for each of them.
+     *
+     * @param node The node number of the point of interest.
+     * @param category The index of the category in the types the search was given.
+     * @param travelTime The travel time from the starting node in centiseconds.
+     * @return false to stop the search.
+     */
+    boolean found(int node, int category, int travelTime);
+}
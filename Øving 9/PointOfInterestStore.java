@@ -0,0 +1,227 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+/**
+ * The points of interest, read once from the point of interest file.
+ * <p>
+ * The type of every node is a bitmask in one int array, so a search can check if a node is a
+ * point of interest of a type in O(1) without boxing the node number.
+ * The names are only needed when a result is shown, so they are stored compactly: every
+ * different name is stored once as UTF-8 bytes in one array, and each point of interest
+ * only has the number of its name.
+ * <p>
+ * The format of a line in the point of interest file is: nodeNumber type "name"
+ */
+class PointOfInterestStore {
+    // The type bitmask of each node, 0 if the node is not a point of interest.
+    final int[] types;
+    // The node numbers of the points of interest, sorted.
+    private final int[] nodes;
+    // The number of the name of each point of interest in nodes, -1 if it has no name.
+    private final int[] nameOfNode;
+    // The bytes of name n are from nameStart[n] to nameStart[n + 1] in nameBytes.
+    private final int[] nameStart;
+    private final byte[] nameBytes;
+
+    /**
+     * Class constructor.
+     *
+     * @param types The type bitmask of each node.
+     * @param nodes The node numbers of the points of interest, sorted.
+     * @param nameOfNode The number of the name of each point of interest.
+     * @param nameStart The first byte of each name, followed by the amount of bytes.
+     * @param nameBytes The names as UTF-8.
+     */
+    private PointOfInterestStore(int[] types, int[] nodes, int[] nameOfNode, int[] nameStart, byte[] nameBytes) {
+        this.types = types;
+        this.nodes = nodes;
+        this.nameOfNode = nameOfNode;
+        this.nameStart = nameStart;
+        this.nameBytes = nameBytes;
+    }
+
+    /**
+     * Makes a store from only the types, for example from a graph snapshot. The points of
+     * interest have no names.
+     *
+     * @param types The type bitmask of each node.
+     */
+    PointOfInterestStore(int[] types) {
+        this.types = types;
+        nodes = pointOfInterestNodes(types);
+        nameOfNode = new int[nodes.length];
+        Arrays.fill(nameOfNode, -1);
+        nameStart = new int[1];
+        nameBytes = new byte[0];
+    }
+
+    /**
+     * Finds the nodes that are points of interest.
+     *
+     * @param types The type bitmask of each node.
+     * @return The node numbers of the nodes with a type, sorted.
+     */
+    private static int[] pointOfInterestNodes(int[] types) {
+        int amount = 0;
+        for (int type : types) {
+            if (type != 0) {
+                amount++;
+            }
+        }
+        int[] nodes = new int[amount];
+        int index = 0;
+        for (int node = 0; node < types.length; node++) {
+            if (types[node] != 0) {
+                nodes[index++] = node;
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * Reads the point of interest file.
+     *
+     * @param fileName The name of the file.
+     * @param amountNodes The amount of nodes in the graph.
+     * @return The store.
+     * @throws IOException if the file could not be read.
+     */
+    static PointOfInterestStore read(String fileName, int amountNodes) throws IOException {
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(fileName, StandardCharsets.UTF_8))) {
+            StringTokenizer stringTokenizer = new StringTokenizer(bufferedReader.readLine());
+            // The amount of points of interest is on the first line of the file.
+            int amountLines = Integer.parseInt(stringTokenizer.nextToken());
+            int[] types = new int[amountNodes];
+            // The name of each node with a name, and the number given to each different name.
+            Map<Integer, Integer> nameOfNodeMap = new HashMap<>();
+            Map<String, Integer> nameNumbers = new HashMap<>();
+            byte[] nameBytes = new byte[1024];
+            int[] nameStart = new int[64];
+            int amountNames = 0;
+            for (int i = 0; i < amountLines; i++) {
+                String line = bufferedReader.readLine();
+                stringTokenizer = new StringTokenizer(line);
+                int nodeNumber = Integer.parseInt(stringTokenizer.nextToken());
+                types[nodeNumber] |= Integer.parseInt(stringTokenizer.nextToken());
+
+                String name = parseName(line);
+                if (name.isEmpty()) {
+                    continue;
+                }
+                Integer nameNumber = nameNumbers.get(name);
+                if (nameNumber == null) {
+                    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                    int start = nameStart[amountNames];
+                    if (start + bytes.length > nameBytes.length) {
+                        nameBytes = Arrays.copyOf(nameBytes, Math.max(nameBytes.length * 2, start + bytes.length));
+                    }
+                    System.arraycopy(bytes, 0, nameBytes, start, bytes.length);
+                    if (amountNames + 2 > nameStart.length) {
+                        nameStart = Arrays.copyOf(nameStart, nameStart.length * 2);
+                    }
+                    nameStart[amountNames + 1] = start + bytes.length;
+                    nameNumber = amountNames++;
+                    nameNumbers.put(name, nameNumber);
+                }
+                nameOfNodeMap.put(nodeNumber, nameNumber);
+            }
+
+            int[] nodes = pointOfInterestNodes(types);
+            int[] nameOfNode = new int[nodes.length];
+            for (int index = 0; index < nodes.length; index++) {
+                nameOfNode[index] = nameOfNodeMap.getOrDefault(nodes[index], -1);
+            }
+            return new PointOfInterestStore(types, nodes, nameOfNode,
+                    Arrays.copyOf(nameStart, amountNames + 1), Arrays.copyOf(nameBytes, nameStart[amountNames]));
+        }
+    }
+
+    /**
+     * Finds the name in a line, the text between the first and the last quote. If there are no
+     * quotes, the name is the rest of the line after the node number and the type.
+     *
+     * @param line The line.
+     * @return The name, empty if there is none.
+     */
+    private static String parseName(String line) {
+        int firstQuote = line.indexOf('"');
+        int lastQuote = line.lastIndexOf('"');
+        if (firstQuote != -1 && lastQuote > firstQuote) {
+            return line.substring(firstQuote + 1, lastQuote);
+        }
+        StringTokenizer stringTokenizer = new StringTokenizer(line);
+        stringTokenizer.nextToken();
+        stringTokenizer.nextToken();
+        return stringTokenizer.hasMoreTokens() ? stringTokenizer.nextToken("").trim() : "";
+    }
+
+    /**
+     * Checks if a node is a point of interest with every bit of a type.
+     *
+     * @param node The node number.
+     * @param type The type bitmask.
+     * @return true if the node is a point of interest and has the type.
+     */
+    boolean hasType(int node, int type) {
+        int nodeType = types[node];
+        return nodeType != 0 && (nodeType & type) == type;
+    }
+
+    /**
+     * Returns the type bitmask of a node.
+     *
+     * @param node The node number.
+     * @return The type bitmask, 0 if the node is not a point of interest.
+     */
+    int type(int node) {
+        return types[node];
+    }
+
+    /**
+     * Returns the amount of points of interest.
+     *
+     * @return The amount.
+     */
+    int amount() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the name of a point of interest.
+     *
+     * @param node The node number.
+     * @return The name, or null if the node is not a point of interest or has no name.
+     */
+    String name(int node) {
+        int index = Arrays.binarySearch(nodes, node);
+        if (index < 0 || nameOfNode[index] == -1) {
+            return null;
+        }
+        int name = nameOfNode[index];
+        return new String(nameBytes, nameStart[name], nameStart[name + 1] - nameStart[name], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the node numbers of the points of interest of a type.
+     *
+     * @param type The type bitmask.
+     * @return Set containing the node numbers of the nodes that have every bit of the type.
+     */
+    Set<Integer> nodesOfType(int type) {
+        Set<Integer> nodeSet = new HashSet<>();
+        for (int node : nodes) {
+            if (hasType(node, type)) {
+                nodeSet.add(node);
+            }
+        }
+        return nodeSet;
+    }
+}
@@ -0,0 +1,156 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+class PreprocessedDijkstra extends DijkstrasAlgorithm {
+
+    /**
+     * Runs the dijkstra algorithm on the whole graph from the start node.
+     * The travel times are written straight into the given array, so several of these
+     * searches can run at the same time on the same graph.
+     * @param startNodeNumber the node where the algorithm starts.
+     * @param graph the graph to search through.
+     * @param travelTimes array that gets the travel time to every node.
+     */
+    void dijkstra(int startNodeNumber, RoadGraph graph, int[] travelTimes) {
+        dijkstra(startNodeNumber, graph, travelTimes, null);
+    }
+
+    /**
+     * Runs the dijkstra algorithm on the whole graph from the start node, and keeps the
+     * shortest path tree.
+     * @param startNodeNumber the node where the algorithm starts.
+     * @param graph the graph to search through.
+     * @param travelTimes array that gets the travel time to every node.
+     * @param previousNodes array that gets the previous node in the shortest path to every
+     *                      node, -1 if there is none. Can be null if the tree is not needed.
+     */
+    void dijkstra(int startNodeNumber, RoadGraph graph, int[] travelTimes, int[] previousNodes) {
+        dijkstra(startNodeNumber, graph, CostMetric.TRAVEL_TIME, travelTimes, previousNodes);
+    }
+
+    /**
+     * Runs the dijkstra algorithm on the whole graph from the start node with the costs of a
+     * metric instead of the travel times.
+     * @param startNodeNumber the node where the algorithm starts.
+     * @param graph the graph to search through.
+     * @param metric the cost metric.
+     * @param travelTimes array that gets the lowest cost to every node.
+     * @param previousNodes array that gets the previous node in the path with the lowest cost
+     *                      to every node. Can be null if the tree is not needed.
+     */
+    void dijkstra(int startNodeNumber, RoadGraph graph, CostMetric metric, int[] travelTimes, int[] previousNodes) {
+        int[] weights = graph.weights(metric);
+        Arrays.fill(travelTimes, Integer.MAX_VALUE);
+        if (previousNodes != null) {
+            Arrays.fill(previousNodes, -1);
+        }
+        travelTimes[startNodeNumber] = 0;
+        NodePriorityQueue priorityQueue = queueType.create(graph.amountNodes);
+        priorityQueue.addOrDecrease(startNodeNumber, 0);
+        while (!priorityQueue.isEmpty()) {
+            int currentNode = priorityQueue.poll();
+            int currentTravelTime = travelTimes[currentNode];
+            for (int edge = graph.edgeStart[currentNode]; edge < graph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = graph.edgeTarget[edge];
+                int newTravelTime = currentTravelTime + weights[edge];
+                if (newTravelTime < travelTimes[toNode]) {
+                    travelTimes[toNode] = newTravelTime;
+                    if (previousNodes != null) {
+                        previousNodes[toNode] = currentNode;
+                    }
+                    priorityQueue.addOrDecrease(toNode, newTravelTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * Preprocesses a graph using the dijkstra algorithm and landmarks as start-nodes.
+     * The searches from and to every landmark run at the same time, one on each core.
+     * @param landmarkNodes array containing the node numbers of landmarks to run the dijkstra
+     *                  algorithm from.
+     */
+    void preprocess(int[] landmarkNodes) {
+        preprocess(landmarkNodes, CostMetric.TRAVEL_TIME);
+    }
+
+    /**
+     * Preprocesses a graph with the costs of a metric, so ALT can be used with the metric.
+     * @param landmarkNodes array containing the node numbers of landmarks to run the dijkstra
+     *                  algorithm from.
+     * @param metric the cost metric.
+     */
+    void preprocess(int[] landmarkNodes, CostMetric metric) {
+        int[][] landmarkToNodes = new int[landmarkNodes.length][graph.amountNodes];
+        int[][] nodesToLandmark = new int[landmarkNodes.length][invertedGraph.amountNodes];
+
+        int threads = Math.min(2 * landmarkNodes.length, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> searches = new ArrayList<>();
+            for (int i = 0; i < landmarkNodes.length; i++) {
+                int landmark = landmarkNodes[i];
+                int[] fromLandmark = landmarkToNodes[i];
+                int[] toLandmark = nodesToLandmark[i];
+                searches.add(executor.submit(() -> dijkstra(landmark, graph, metric, fromLandmark, null)));
+                searches.add(executor.submit(() -> dijkstra(landmark, invertedGraph, metric, toLandmark, null)));
+            }
+            for (Future<?> search : searches) {
+                search.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdown();
+        }
+        setLandmarks(metric, Landmarks.fromArrays(landmarkNodes, landmarkToNodes, nodesToLandmark));
+    }
+
+    /**
+     * Preprocesses the graph and writes the travel times between the landmarks and every node
+     * to a binary landmark file. See {@link Landmarks} for the format.
+     * @param fileName name of the file containing preprocessed data.
+     * @param landmarks array consisting of node numbers, corresponding to landmarks on a map.
+     * @throws IOException if there was a problem writing to file.
+     */
+    public void writeFromLandmarks(String fileName, int[] landmarks)
+            throws IOException {
+        writeFromLandmarks(fileName, landmarks, CostMetric.TRAVEL_TIME);
+    }
+
+    /**
+     * Preprocesses the graph with the costs of a metric and writes the landmark file.
+     * @param fileName name of the file containing preprocessed data.
+     * @param landmarks array consisting of node numbers, corresponding to landmarks on a map.
+     * @param metric the cost metric.
+     * @throws IOException if there was a problem writing to file.
+     */
+    public void writeFromLandmarks(String fileName, int[] landmarks, CostMetric metric)
+            throws IOException {
+        preprocess(landmarks, metric);
+        landmarks(metric).write(fileName);
+    }
+
+    /**
+     * Main method - Run this to generate preprocessed file.
+     *
+     * @param args String[], optionally a landmark selection strategy and the amount of landmarks.
+     */
+    public static void main(String[] args) {
+        try {
+            PreprocessedDijkstra pd = new PreprocessedDijkstra();
+            pd.loadGraph("noder.txt", "kanter.txt");
+            String filename = "preprossesert.bin";
+            int[] landmarks = new int[]{1102516, 3047524, 4392562, 6101939};
+            // The landmarks can also be selected, for example with the arguments: AVOID 8
+            if (args.length == 2) {
+                LandmarkSelector selector = new LandmarkSelector(pd, new Random().nextLong());
+                landmarks = selector.select(LandmarkSelector.Strategy.valueOf(args[0]), Integer.parseInt(args[1]));
+            }
+            pd.writeFromLandmarks(filename, landmarks);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
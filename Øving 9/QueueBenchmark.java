@@ -0,0 +1,52 @@
+import java.util.Random;
+
+/**
+ * Compares the priority queues the searches can run on, by running the same random
+ * queries with each of them.
+ */
+class QueueBenchmark {
+
+    /**
+     * Main method - Runs the benchmark.
+     * Uses noder.txt and kanter.txt if they are given as arguments, and a synthetic grid otherwise.
+     *
+     * @param args Optionally the node file and the edge file.
+     */
+    public static void main(String[] args) {
+        DijkstrasAlgorithm dijkstras = new DijkstrasAlgorithm();
+        if (args.length == 2) {
+            dijkstras.readNodeFile(args[0]);
+            dijkstras.readEdgeFile(args[1]);
+        } else {
+            dijkstras.graph = SyntheticGraphs.grid(1000, 1000, 1);
+        }
+        RoadGraph graph = dijkstras.graph;
+
+        int amountQueries = 20;
+        int[] startNodes = new int[amountQueries];
+        int[] endNodes = new int[amountQueries];
+        Random random = new Random(1);
+        for (int i = 0; i < amountQueries; i++) {
+            startNodes[i] = random.nextInt(graph.amountNodes);
+            endNodes[i] = random.nextInt(graph.amountNodes);
+        }
+
+        StringBuilder results = new StringBuilder();
+        for (QueueType queueType : QueueType.values()) {
+            DijkstrasAlgorithm search = new DijkstrasAlgorithm();
+            search.queueType = queueType;
+            // Warm up before measuring.
+            for (int i = 0; i < 3; i++) {
+                search.dijkstra(startNodes[i], endNodes[i], graph);
+            }
+            long startTime = System.nanoTime();
+            for (int i = 0; i < amountQueries; i++) {
+                search.dijkstra(startNodes[i], endNodes[i], graph);
+            }
+            long executionTime = System.nanoTime() - startTime;
+            results.append(queueType).append(": ")
+                    .append(executionTime / amountQueries / 1_000_000.0).append(" ms per query\n");
+        }
+        System.out.println(results);
+    }
+}
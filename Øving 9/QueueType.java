@@ -0,0 +1,28 @@
+/**
+ * The different queue implementations the searches can run on.
+ */
+enum QueueType {
+    BINARY_HEAP,
+    FOUR_ARY_HEAP,
+    LAZY_DELETION_HEAP,
+    JAVA_PRIORITY_QUEUE;
+
+    /**
+     * Makes a new queue of this type.
+     *
+     * @param amountNodes The amount of nodes in the graph that will be searched through.
+     * @return The queue.
+     */
+    NodePriorityQueue create(int amountNodes) {
+        switch (this) {
+            case BINARY_HEAP:
+                return new IndexedHeap(amountNodes, 2);
+            case FOUR_ARY_HEAP:
+                return new IndexedHeap(amountNodes, 4);
+            case LAZY_DELETION_HEAP:
+                return new LazyDeletionHeap(amountNodes);
+            default:
+                return new JavaPriorityQueue(amountNodes);
+        }
+    }
+}
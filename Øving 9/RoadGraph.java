@@ -0,0 +1,203 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Class that represents the road network as a compressed sparse row (CSR) graph.
+ * Instead of one object per node and per edge, the whole graph is a handful of primitive
+ * arrays. The edges going from node n are stored at the indexes edgeStart[n] up to (but not
+ * including) edgeStart[n + 1] in the edge arrays.
+ * <p>
+ * A search can minimize another cost than the travel time, see CostMetric. The cost of each
+ * edge is then one more array next to the others, so the rest of the graph is shared by
+ * every metric.
+ */
+class RoadGraph {
+    // Amount of nodes in the graph.
+    final int amountNodes;
+    // Amount of edges in the graph.
+    final int amountEdges;
+    // The latitude coordinate of each node, indexed by node number.
+    final double[] latitude;
+    // The longitude coordinate of each node, indexed by node number.
+    final double[] longitude;
+    // Index of the first edge of each node, has amountNodes + 1 elements.
+    final int[] edgeStart;
+    // The node each edge is going to.
+    final int[] edgeTarget;
+    // The time it takes to traverse each edge in centi-seconds.
+    final int[] travelTime;
+    // The length of each edge in meters.
+    final int[] length;
+    // The speed limit when traversing each edge.
+    final int[] speedLimit;
+    // The cost of each edge for the weighted metrics that have been used, made the first time.
+    private final Map<CostMetric, int[]> weightedCosts = new HashMap<>();
+    // The lowest cost per chord length for A* of each metric that has been used, made the first time.
+    private final Map<CostMetric, Double> costPerChord = new HashMap<>();
+    // For a graph with the edges inverted, the index of each edge in the graph it was inverted
+    // from, made the first time, and that graph.
+    private int[] forwardEdges;
+    private RoadGraph forwardEdgesGraph;
+
+    /**
+     * Class constructor.
+     *
+     * @param latitude The latitude coordinate of each node.
+     * @param longitude The longitude coordinate of each node.
+     * @param edgeStart Index of the first edge of each node, followed by the amount of edges.
+     * @param edgeTarget The node each edge is going to.
+     * @param travelTime The time it takes to traverse each edge.
+     * @param length The length of each edge.
+     * @param speedLimit The speed limit of each edge.
+     */
+    RoadGraph(double[] latitude, double[] longitude, int[] edgeStart, int[] edgeTarget,
+              int[] travelTime, int[] length, int[] speedLimit) {
+        this.amountNodes = latitude.length;
+        this.amountEdges = edgeTarget.length;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.travelTime = travelTime;
+        this.length = length;
+        this.speedLimit = speedLimit;
+    }
+
+    /**
+     * Builds a graph from a list of edges given in any order.
+     * The edges are placed with a counting sort on the node they go from, which keeps
+     * the edges of each node in the same order as in the list.
+     *
+     * @param latitude The latitude coordinate of each node.
+     * @param longitude The longitude coordinate of each node.
+     * @param amountEdges The amount of edges in the list.
+     * @param fromNode The node each edge is going from.
+     * @param toNode The node each edge is going to.
+     * @param travelTime The time it takes to traverse each edge.
+     * @param length The length of each edge.
+     * @param speedLimit The speed limit of each edge.
+     * @return The graph containing all the edges.
+     */
+    static RoadGraph fromEdgeList(double[] latitude, double[] longitude, int amountEdges,
+                                  int[] fromNode, int[] toNode, int[] travelTime, int[] length,
+                                  int[] speedLimit) {
+        int amountNodes = latitude.length;
+        int[] edgeStart = new int[amountNodes + 1];
+        // Count the edges of each node, shifted by one so the prefix sum gives the start index.
+        for (int i = 0; i < amountEdges; i++) {
+            edgeStart[fromNode[i] + 1]++;
+        }
+        for (int node = 0; node < amountNodes; node++) {
+            edgeStart[node + 1] += edgeStart[node];
+        }
+
+        int[] sortedTarget = new int[amountEdges];
+        int[] sortedTravelTime = new int[amountEdges];
+        int[] sortedLength = new int[amountEdges];
+        int[] sortedSpeedLimit = new int[amountEdges];
+        // Next free position for each node while placing its edges.
+        int[] nextPosition = new int[amountNodes];
+        System.arraycopy(edgeStart, 0, nextPosition, 0, amountNodes);
+        for (int i = 0; i < amountEdges; i++) {
+            int position = nextPosition[fromNode[i]]++;
+            sortedTarget[position] = toNode[i];
+            sortedTravelTime[position] = travelTime[i];
+            sortedLength[position] = length[i];
+            sortedSpeedLimit[position] = speedLimit[i];
+        }
+        return new RoadGraph(latitude, longitude, edgeStart, sortedTarget, sortedTravelTime,
+                sortedLength, sortedSpeedLimit);
+    }
+
+    /**
+     * Returns the cost of each edge for a metric. The travel time and the distance are the
+     * arrays of the graph, and the cost for another metric is computed the first time it is
+     * used and kept.
+     *
+     * @param metric The cost metric.
+     * @return The cost of each edge, in the same order as the other edge arrays.
+     */
+    int[] weights(CostMetric metric) {
+        if (metric == CostMetric.TRAVEL_TIME) {
+            return travelTime;
+        }
+        if (metric == CostMetric.DISTANCE) {
+            return length;
+        }
+        synchronized (weightedCosts) {
+            return weightedCosts.computeIfAbsent(metric, key -> {
+                int[] cost = new int[amountEdges];
+                for (int edge = 0; edge < amountEdges; edge++) {
+                    cost[edge] = key.cost(travelTime[edge], length[edge], speedLimit[edge]);
+                }
+                return cost;
+            });
+        }
+    }
+
+    /**
+     * Returns the lowest cost per chord length over the edges for a metric, which the A*
+     * bound is made from. It is found the first time it is used and kept with the graph, so it
+     * is thrown away with the graph when the travel times are updated.
+     *
+     * @param metric The cost metric.
+     * @param estimate The unit vectors of the nodes, made from the coordinates of this graph.
+     * @return The cost per chord length, see GeometricEstimate.costPerChord.
+     */
+    double costPerChord(CostMetric metric, GeometricEstimate estimate) {
+        synchronized (costPerChord) {
+            return costPerChord.computeIfAbsent(metric, key -> estimate.costPerChord(this, weights(key)));
+        }
+    }
+
+    /**
+     * Returns, for a graph with all the edges inverted, the index of each edge in the graph it
+     * was inverted from, so the edges a backward search recorded can be used as edges of the
+     * forward graph. It is made the first time, in one pass over the edges of the forward graph,
+     * and kept with the graph.
+     * <p>
+     * Parallel roads between the same nodes are told apart by their travel time, length and
+     * speed limit, and roads where all of these are the same give the same route either way.
+     *
+     * @param forwardGraph The graph this graph was inverted from.
+     * @return The index in the forward graph of each edge, -1 for an edge that is not in it.
+     */
+    synchronized int[] forwardEdges(RoadGraph forwardGraph) {
+        if (forwardEdgesGraph == forwardGraph) {
+            return forwardEdges;
+        }
+        int[] edges = new int[amountEdges];
+        Arrays.fill(edges, -1);
+        for (int fromNode = 0; fromNode < forwardGraph.amountNodes; fromNode++) {
+            for (int edge = forwardGraph.edgeStart[fromNode]; edge < forwardGraph.edgeStart[fromNode + 1]; edge++) {
+                // The inverted edge is stored at the node the road ends in, and goes to the node it starts in.
+                int toNode = forwardGraph.edgeTarget[edge];
+                for (int inverted = edgeStart[toNode]; inverted < edgeStart[toNode + 1]; inverted++) {
+                    if (edges[inverted] == -1 && edgeTarget[inverted] == fromNode
+                            && travelTime[inverted] == forwardGraph.travelTime[edge]
+                            && length[inverted] == forwardGraph.length[edge]
+                            && speedLimit[inverted] == forwardGraph.speedLimit[edge]) {
+                        edges[inverted] = edge;
+                        break;
+                    }
+                }
+            }
+        }
+        forwardEdges = edges;
+        forwardEdgesGraph = forwardGraph;
+        return edges;
+    }
+
+    /**
+     * Returns the amount of bytes used by the arrays of the graph.
+     * The coordinate arrays are counted even if they are shared with another graph.
+     *
+     * @return The size of the graph in bytes.
+     */
+    long memoryFootprint() {
+        return 2L * Double.BYTES * amountNodes
+                + (long) Integer.BYTES * (amountNodes + 1)
+                + 4L * Integer.BYTES * amountEdges;
+    }
+}
@@ -0,0 +1,208 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of the routes that have been found, so a query that is asked again is answered
+ * without a search.
+ * <p>
+ * The routes are kept in a LinkedHashMap in the order they were last used, and the least
+ * recently used route is removed when there are more than capacity routes. Every method
+ * holds the lock of the cache, so it can be shared by the worker threads of a RoutingService.
+ * <p>
+ * The paths are stored encoded with PathCodec, which takes a fraction of the memory of the
+ * node numbers, so more routes fit in the same memory.
+ * <p>
+ * The routes are only valid for the version of the graph they were found in, see
+ * DijkstrasAlgorithm.currentVersion, so the cache remembers the newest version number it has
+ * seen, and is emptied when a newer one is used. A query that is still running on an older
+ * version neither finds nor adds routes, so the cache is not emptied back and forth while the
+ * travel times are updated.
+ */
+class RouteCache {
+    // The largest amount of routes in the cache.
+    private final int capacity;
+    // The routes, in the order they were last used.
+    private final LinkedHashMap<Key, Route> routes;
+    // The number of the version of the graph the routes were found in.
+    private long version = -1;
+    // Amount of lookups that found a route, and that did not.
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Class constructor.
+     *
+     * @param capacity The largest amount of routes in the cache.
+     */
+    RouteCache(int capacity) {
+        this.capacity = capacity;
+        // Access order, so a lookup moves the route to the end, and the first route is the least recently used.
+        this.routes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Route> eldest) {
+                return size() > RouteCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Looks up a route.
+     *
+     * @param version The number of the version of the graph the query is for.
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber The ending node´s node number.
+     * @param metric The cost metric of the query.
+     * @return The route, or null if it is not in the cache.
+     */
+    synchronized Route get(long version, int startNodeNumber, int endNodeNumber, CostMetric metric) {
+        Route route = checkVersion(version) ? routes.get(new Key(startNodeNumber, endNodeNumber, metric)) : null;
+        if (route == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return route;
+    }
+
+    /**
+     * Adds a route, and removes the least recently used route if the cache is full.
+     *
+     * @param version The number of the version of the graph the route was found in.
+     * @param startNodeNumber The starting node´s node number.
+     * @param endNodeNumber The ending node´s node number.
+     * @param metric The cost metric of the query.
+     * @param route The route.
+     */
+    synchronized void put(long version, int startNodeNumber, int endNodeNumber, CostMetric metric, Route route) {
+        if (checkVersion(version)) {
+            routes.put(new Key(startNodeNumber, endNodeNumber, metric), route);
+        }
+    }
+
+    /**
+     * Empties the cache if the version is newer than the one the routes were found in.
+     *
+     * @param version The number of the version of the graph of the query.
+     * @return True if the routes are for the version, false if the version is older.
+     */
+    private boolean checkVersion(long version) {
+        if (version > this.version) {
+            routes.clear();
+            this.version = version;
+        }
+        return version == this.version;
+    }
+
+    /**
+     * Removes every route, for example when the edges of the graph have changed.
+     */
+    synchronized void invalidate() {
+        routes.clear();
+    }
+
+    /**
+     * Returns the amount of routes in the cache.
+     *
+     * @return The amount of routes.
+     */
+    synchronized int size() {
+        return routes.size();
+    }
+
+    /**
+     * Returns the amount of lookups that found a route.
+     *
+     * @return The amount of hits.
+     */
+    synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * Returns the amount of lookups that did not find a route.
+     *
+     * @return The amount of misses.
+     */
+    synchronized long misses() {
+        return misses;
+    }
+
+    /**
+     * Makes a summary of the size and the hit rate of the cache.
+     *
+     * @return The summary.
+     */
+    synchronized String statistics() {
+        long lookups = hits + misses;
+        return "Cached routes: " + routes.size() + "/" + capacity
+                + ", hits: " + hits + ", misses: " + misses
+                + ", hit rate: " + String.format("%.1f", lookups == 0 ? 0.0 : 100.0 * hits / lookups) + " %";
+    }
+
+    /**
+     * A route in the cache.
+     */
+    static class Route {
+        // The cost of the path in the metric, the travel time in centiseconds for CostMetric.TRAVEL_TIME. -1 if there is no path.
+        final int travelTime;
+        // The node numbers in the path, encoded with PathCodec.
+        final byte[] encodedPath;
+
+        /**
+         * Class constructor.
+         *
+         * @param travelTime The cost of the path, -1 if there is no path.
+         * @param encodedPath The node numbers in the path, encoded with PathCodec.
+         */
+        Route(int travelTime, byte[] encodedPath) {
+            this.travelTime = travelTime;
+            this.encodedPath = encodedPath;
+        }
+
+        /**
+         * Decodes the path.
+         *
+         * @return The node numbers in the path, empty if there is no path.
+         */
+        int[] path() {
+            return PathCodec.decode(encodedPath);
+        }
+    }
+
+    /**
+     * The key of a route, the start and end node and the metric.
+     */
+    private static class Key {
+        private final int startNodeNumber;
+        private final int endNodeNumber;
+        private final CostMetric metric;
+
+        /**
+         * Class constructor.
+         *
+         * @param startNodeNumber The starting node´s node number.
+         * @param endNodeNumber The ending node´s node number.
+         * @param metric The cost metric.
+         */
+        Key(int startNodeNumber, int endNodeNumber, CostMetric metric) {
+            this.startNodeNumber = startNodeNumber;
+            this.endNodeNumber = endNodeNumber;
+            this.metric = metric;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object;
+            return startNodeNumber == other.startNodeNumber && endNodeNumber == other.endNodeNumber
+                    && metric == other.metric;
+        }
+
+        @Override
+        public int hashCode() {
+            return (startNodeNumber * 31 + endNodeNumber) * 31 + metric.hashCode();
+        }
+    }
+}
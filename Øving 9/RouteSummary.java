@@ -0,0 +1,154 @@
+import java.util.Arrays;
+
+/**
+ * Summary of a route found by a search: the length, the travel time, how much of the route
+ * is driven at each speed limit, and a polyline of every few nodes for drawing it on a map.
+ * <p>
+ * The summary is made in one pass over the path, with the edge each node was reached through
+ * read from the search context, so the edges do not have to be found again, and nothing is
+ * allocated per node.
+ * A bidirectional search records the second half of the path with the edges of the forward
+ * graph the backward search went through. Only an edge a search did not record is found among
+ * the edges of the previous node, as the one with the lowest weight of the searched metric.
+ */
+class RouteSummary {
+    // The starting node´s and the ending node´s node number.
+    final int startNodeNumber;
+    final int endNodeNumber;
+    // Amount of nodes in the route, 0 if there is no route.
+    final int amountNodes;
+    // The length of the route in meters.
+    final long length;
+    // The travel time of the route in centiseconds.
+    final long travelTime;
+    // The speed limits driven at, from lowest to highest, and the length in meters and the
+    // travel time in centiseconds driven at each of them.
+    final int[] speedLimits;
+    final long[] speedLimitLength;
+    final long[] speedLimitTravelTime;
+    // The coordinates of every sampleInterval node of the route, and of the last node.
+    final double[] polylineLatitude;
+    final double[] polylineLongitude;
+
+    /**
+     * Makes the summary of the route to a node found by the last search that used a context.
+     * The path is read into the path buffer of the context, see DijkstrasAlgorithm.fillPath.
+     *
+     * @param router The algorithm instance the search ran on.
+     * @param graph The graph that was searched forward from the start node.
+     * @param metric The cost metric the search minimized.
+     * @param endNodeNumber The ending node´s node number.
+     * @param context The context of the search.
+     * @param sampleInterval The amount of nodes between two points of the polyline.
+     */
+    RouteSummary(DijkstrasAlgorithm router, RoadGraph graph, CostMetric metric, int endNodeNumber,
+                 SearchContext context, int sampleInterval) {
+        int pathLength = router.fillPath(endNodeNumber, context);
+        int[] path = context.path;
+        this.startNodeNumber = pathLength == 0 ? -1 : path[0];
+        this.endNodeNumber = endNodeNumber;
+        this.amountNodes = pathLength;
+
+        // The length and travel time driven at each speed limit, in the order the speed limits
+        // are first driven at. There are only a handful of different speed limits.
+        int[] limits = new int[8];
+        long[] limitLength = new long[8];
+        long[] limitTravelTime = new long[8];
+        int amountLimits = 0;
+        int lastIndex = pathLength - 1;
+        int amountSamples = pathLength == 0 ? 0 : lastIndex / sampleInterval + (lastIndex % sampleInterval == 0 ? 1 : 2);
+        polylineLatitude = new double[amountSamples];
+        polylineLongitude = new double[amountSamples];
+        int samples = 0;
+        long totalLength = 0;
+        long totalTravelTime = 0;
+        for (int i = 0; i < pathLength; i++) {
+            int node = path[i];
+            if (i % sampleInterval == 0 || i == lastIndex) {
+                polylineLatitude[samples] = graph.latitude[node];
+                polylineLongitude[samples++] = graph.longitude[node];
+            }
+            if (i == 0) {
+                continue;
+            }
+            int edge = context.previousEdge(node);
+            if (edge == -1) {
+                edge = findEdge(graph, graph.weights(metric), path[i - 1], node);
+            }
+            totalLength += graph.length[edge];
+            totalTravelTime += graph.travelTime[edge];
+            int limit = 0;
+            while (limit < amountLimits && limits[limit] != graph.speedLimit[edge]) {
+                limit++;
+            }
+            if (limit == amountLimits) {
+                if (amountLimits == limits.length) {
+                    limits = Arrays.copyOf(limits, amountLimits * 2);
+                    limitLength = Arrays.copyOf(limitLength, amountLimits * 2);
+                    limitTravelTime = Arrays.copyOf(limitTravelTime, amountLimits * 2);
+                }
+                limits[amountLimits++] = graph.speedLimit[edge];
+            }
+            limitLength[limit] += graph.length[edge];
+            limitTravelTime[limit] += graph.travelTime[edge];
+        }
+        length = totalLength;
+        travelTime = totalTravelTime;
+
+        // Sorted on the speed limit, there are too few of them for the sort to matter.
+        speedLimits = Arrays.copyOf(limits, amountLimits);
+        speedLimitLength = new long[amountLimits];
+        speedLimitTravelTime = new long[amountLimits];
+        Arrays.sort(speedLimits);
+        for (int limit = 0; limit < amountLimits; limit++) {
+            int index = Arrays.binarySearch(speedLimits, limits[limit]);
+            speedLimitLength[index] = limitLength[limit];
+            speedLimitTravelTime[index] = limitTravelTime[limit];
+        }
+    }
+
+    /**
+     * Finds the edge between two nodes with the lowest cost, the one a search would have used.
+     *
+     * @param graph The graph.
+     * @param weights The cost of each edge in the metric of the search.
+     * @param fromNode The node the edge starts in.
+     * @param toNode The node the edge ends in.
+     * @return The index of the edge.
+     * @throws IllegalStateException if there is no edge between the nodes.
+     */
+    private static int findEdge(RoadGraph graph, int[] weights, int fromNode, int toNode) {
+        int found = -1;
+        for (int edge = graph.edgeStart[fromNode]; edge < graph.edgeStart[fromNode + 1]; edge++) {
+            if (graph.edgeTarget[edge] == toNode && (found == -1 || weights[edge] < weights[found])) {
+                found = edge;
+            }
+        }
+        if (found == -1) {
+            throw new IllegalStateException("There is no edge from node " + fromNode + " to node " + toNode);
+        }
+        return found;
+    }
+
+    /**
+     * Describes the route with its length, travel time and the part driven at each speed limit.
+     *
+     * @return The description.
+     */
+    @Override
+    public String toString() {
+        if (amountNodes == 0) {
+            return "No route to node " + endNodeNumber;
+        }
+        StringBuilder description = new StringBuilder();
+        description.append("Route from node ").append(startNodeNumber).append(" to node ").append(endNodeNumber)
+                .append(": ").append(length / 1000.0).append(" km in ").append(travelTime / 100).append(" seconds, ")
+                .append(amountNodes).append(" nodes\n");
+        for (int limit = 0; limit < speedLimits.length; limit++) {
+            description.append("  ").append(speedLimits[limit]).append(" km/h: ")
+                    .append(speedLimitLength[limit] / 1000.0).append(" km in ")
+                    .append(speedLimitTravelTime[limit] / 100).append(" seconds\n");
+        }
+        return description.toString();
+    }
+}
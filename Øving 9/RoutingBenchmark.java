@@ -0,0 +1,334 @@
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Benchmarks of the routing engine: reading the graph, preprocessing it, and answering queries.
+ * <p>
+ * The fixture is either a synthetic road-like grid from SyntheticGraphs, written to a node
+ * file and an edge file so the same readers are measured, or the real map files.
+ * The queries are random, and grouped by Dijkstra rank: the end node of a query with rank
+ * 2^r is the node Dijkstra´s algorithm picks as number 2^r from the start node. The cost of
+ * every algorithm grows with the rank, so a change that only helps long or short queries shows
+ * up in its own group instead of disappearing in an average over the whole map.
+ * <p>
+ * Every benchmark is called a few times before it is measured so the JIT has compiled it, the
+ * time of each measured call goes into a Histogram, and the results of the calls are added
+ * to a sink that is printed at the end, so the calls can not be removed as dead code.
+ * <p>
+ * Usage: java RoutingBenchmark [grid width height | map nodeFile edgeFile] [load] [preprocess] [query]
+ */
+class RoutingBenchmark {
+    // The amount of landmarks preprocessed for ALT.
+    private static final int AMOUNT_LANDMARKS = 8;
+    // The lowest Dijkstra rank with a group of queries is 2^FIRST_RANK_EXPONENT.
+    private static final int FIRST_RANK_EXPONENT = 6;
+    // The amount of queries in each group.
+    private static final int QUERIES_PER_RANK = 50;
+
+    // The node file and the edge file of the fixture.
+    private final String nodeFile;
+    private final String edgeFile;
+    // Holds the graph, the inverted graph and the landmarks, shared with the other routers.
+    private final PreprocessedDijkstra preprocessor = new PreprocessedDijkstra();
+    // The contracted graph, made the first time it is needed.
+    private ContractionHierarchy contractionHierarchy;
+    // The results of the measured calls.
+    private long sink = 0;
+
+    /**
+     * Something to measure.
+     */
+    private interface Call {
+        /**
+         * Runs the call once.
+         *
+         * @param index The number of the call, from 0.
+         * @return A result of the call, added to the sink.
+         * @throws Exception if the call failed.
+         */
+        long run(int index) throws Exception;
+    }
+
+    /**
+     * Class constructor, reads the fixture.
+     *
+     * @param nodeFile The node file.
+     * @param edgeFile The edge file.
+     */
+    RoutingBenchmark(String nodeFile, String edgeFile) {
+        this.nodeFile = nodeFile;
+        this.edgeFile = edgeFile;
+        preprocessor.loadGraph(nodeFile, edgeFile);
+    }
+
+    /**
+     * Calls something a few times, then measures it and prints the result.
+     *
+     * @param name The name of the benchmark.
+     * @param resultName What the results of the calls are, printed as an average. Null to not print them.
+     * @param warmupCalls The amount of calls before measuring.
+     * @param calls The amount of measured calls.
+     * @param call The call.
+     * @throws Exception if a call failed.
+     */
+    private void measure(String name, String resultName, int warmupCalls, int calls, Call call) throws Exception {
+        for (int i = 0; i < warmupCalls; i++) {
+            sink += call.run(i % calls);
+        }
+        Histogram latency = new Histogram();
+        long results = 0;
+        for (int i = 0; i < calls; i++) {
+            long startTime = System.nanoTime();
+            long result = call.run(i);
+            latency.record(System.nanoTime() - startTime);
+            results += result;
+        }
+        sink += results;
+        String line = String.format(Locale.ROOT, "%-48s %5d calls, ms mean: %10.3f p50: %10.3f p99: %10.3f max: %10.3f",
+                name, calls, latency.mean() / 1e6, latency.percentile(50) / 1e6,
+                latency.percentile(99) / 1e6, latency.max() / 1e6);
+        if (resultName != null) {
+            line += ", " + resultName + ": " + results / calls;
+        }
+        System.out.println(line);
+    }
+
+    /**
+     * Gives a router the graph, the inverted graph and the coordinates of the fixture.
+     *
+     * @param router The router.
+     * @return The router.
+     */
+    private <T extends DijkstrasAlgorithm> T share(T router) {
+        router.graph = preprocessor.graph;
+        router.invertedGraph = preprocessor.invertedGraph;
+        router.latitude = preprocessor.latitude;
+        router.longitude = preprocessor.longitude;
+        router.amountNodes = preprocessor.amountNodes;
+        return router;
+    }
+
+    /**
+     * Measures reading the fixture from the text files, both with one thread and with the
+     * loader that uses all cores, and reading it from a binary snapshot.
+     *
+     * @throws Exception if a file could not be read or written.
+     */
+    void benchmarkLoading() throws Exception {
+        measure("Read node and edge file, one thread", "edges", 1, 3, i -> {
+            DijkstrasAlgorithm router = new DijkstrasAlgorithm();
+            router.readNodeFile(nodeFile);
+            router.readEdgeFile(edgeFile);
+            return router.graph.amountEdges;
+        });
+        measure("Read node and edge file, GraphLoader", "edges", 1, 3, i -> {
+            DijkstrasAlgorithm router = new DijkstrasAlgorithm();
+            router.loadGraph(nodeFile, edgeFile);
+            return router.graph.amountEdges;
+        });
+        File snapshotFile = File.createTempFile("benchmark", ".bin");
+        snapshotFile.deleteOnExit();
+        preprocessor.writeSnapshot(snapshotFile.getPath());
+        measure("Read snapshot", "edges", 1, 3, i -> {
+            DijkstrasAlgorithm router = new DijkstrasAlgorithm();
+            router.readSnapshot(snapshotFile.getPath());
+            return router.graph.amountEdges;
+        });
+    }
+
+    /**
+     * Measures selecting landmarks with each strategy, preprocessing the landmarks, and
+     * contracting the graph.
+     *
+     * @throws Exception if a call failed.
+     */
+    void benchmarkPreprocessing() throws Exception {
+        for (LandmarkSelector.Strategy strategy : LandmarkSelector.Strategy.values()) {
+            measure("Select " + AMOUNT_LANDMARKS + " landmarks, " + strategy, null, 1, 3,
+                    i -> new LandmarkSelector(preprocessor, i).select(strategy, AMOUNT_LANDMARKS).length);
+        }
+        int[] landmarks = new LandmarkSelector(preprocessor, 1).select(LandmarkSelector.Strategy.AVOID, AMOUNT_LANDMARKS);
+        measure("Preprocess " + AMOUNT_LANDMARKS + " landmarks", null, 1, 3, i -> {
+            preprocessor.preprocess(landmarks);
+            return preprocessor.landmarks.landmarks.length;
+        });
+        // The contraction takes long on a large graph, so it is only measured once.
+        measure("Contract", "edges", 0, 1, i -> {
+            contractionHierarchy = share(new ContractionHierarchy());
+            contractionHierarchy.contract();
+            ContractedGraph contracted = contractionHierarchy.contractedGraph();
+            return contracted.upwardTarget.length + contracted.downwardSource.length;
+        });
+    }
+
+    /**
+     * Makes the random queries, grouped by Dijkstra rank. Each start node is searched from
+     * until every node it can reach is picked, and gives one query to every group its search
+     * reaches far enough for.
+     *
+     * @param seed Seed for the random start nodes.
+     * @return The start and end node of each query in each group, the queries of the group with
+     * rank 2^(FIRST_RANK_EXPONENT + g) are at [g]. A group can have fewer queries on a small graph.
+     */
+    int[][][] rankQueries(long seed) {
+        RoadGraph graph = preprocessor.graph;
+        int amountGroups = Math.max(0, 31 - Integer.numberOfLeadingZeros(graph.amountNodes - 1) - FIRST_RANK_EXPONENT + 1);
+        int[][][] queries = new int[amountGroups][QUERIES_PER_RANK][];
+        int[] amountQueries = new int[amountGroups];
+        SearchContext context = preprocessor.newSearchContext(graph.amountNodes);
+        Random random = new Random(seed);
+        // Start nodes on small islands reach few nodes, so more start nodes than queries may be needed.
+        for (int attempt = 0; attempt < 10 * QUERIES_PER_RANK && amountQueries[0] < QUERIES_PER_RANK; attempt++) {
+            int startNode = random.nextInt(graph.amountNodes);
+            // The nodes of an isochrone without a budget are in the order they were picked.
+            int[] picked = preprocessor.isochrone(startNode, graph, Integer.MAX_VALUE, context).nodes;
+            for (int group = 0; group < amountGroups; group++) {
+                int rank = 1 << (FIRST_RANK_EXPONENT + group);
+                if (rank < picked.length && amountQueries[group] < QUERIES_PER_RANK) {
+                    queries[group][amountQueries[group]++] = new int[]{startNode, picked[rank]};
+                }
+            }
+        }
+        for (int group = 0; group < amountGroups; group++) {
+            queries[group] = Arrays.copyOf(queries[group], amountQueries[group]);
+        }
+        return queries;
+    }
+
+    /**
+     * Measures every query algorithm on every group of queries. The average amount of nodes
+     * picked from the queue is printed with the times.
+     *
+     * @throws Exception if a query failed.
+     */
+    void benchmarkQueries() throws Exception {
+        AltAlgorithm router = share(new AltAlgorithm());
+        if (preprocessor.landmarks == null) {
+            preprocessor.preprocess(new LandmarkSelector(preprocessor, 1).select(LandmarkSelector.Strategy.AVOID, AMOUNT_LANDMARKS));
+        }
+        router.landmarks = preprocessor.landmarks;
+        if (contractionHierarchy == null) {
+            contractionHierarchy = share(new ContractionHierarchy());
+            contractionHierarchy.contract();
+        }
+        SearchContext forward = router.newSearchContext(router.amountNodes);
+        SearchContext backward = router.newSearchContext(router.amountNodes);
+
+        int[][][] queries = rankQueries(1);
+        for (int group = 0; group < queries.length; group++) {
+            int[][] groupQueries = queries[group];
+            if (groupQueries.length == 0) {
+                continue;
+            }
+            String rank = "rank 2^" + (FIRST_RANK_EXPONENT + group) + ", ";
+            int calls = groupQueries.length;
+            measure(rank + "Dijkstra", "nodes picked", calls, calls, i -> {
+                router.dijkstra(groupQueries[i][0], groupQueries[i][1], router.graph, forward);
+                return forward.nodesPicked;
+            });
+            measure(rank + "Bidirectional Dijkstra", "nodes picked", calls, calls, i -> {
+                router.bidirectionalDijkstra(groupQueries[i][0], groupQueries[i][1], forward, backward);
+                return forward.nodesPicked + backward.nodesPicked;
+            });
+            measure(rank + "A*", "nodes picked", calls, calls, i -> {
+                router.aStar(groupQueries[i][0], groupQueries[i][1], CostMetric.TRAVEL_TIME, forward);
+                return forward.nodesPicked;
+            });
+            measure(rank + "ALT", "nodes picked", calls, calls, i -> {
+                router.ALT(groupQueries[i][0], groupQueries[i][1], forward);
+                return forward.nodesPicked;
+            });
+            measure(rank + "Bidirectional ALT", "nodes picked", calls, calls, i -> {
+                router.bidirectionalALT(groupQueries[i][0], groupQueries[i][1], forward, backward);
+                return forward.nodesPicked + backward.nodesPicked;
+            });
+            measure(rank + "Contraction Hierarchies", "nodes picked", calls, calls, i -> {
+                contractionHierarchy.CH(groupQueries[i][0], groupQueries[i][1], forward, backward);
+                return forward.nodesPicked + backward.nodesPicked;
+            });
+        }
+    }
+
+    /**
+     * Writes a graph to a node file and an edge file in the same format as the map files.
+     *
+     * @param graph The graph.
+     * @param nodeFile The name of the node file.
+     * @param edgeFile The name of the edge file.
+     * @throws IOException if there was a problem writing to file.
+     */
+    static void writeTextFiles(RoadGraph graph, String nodeFile, String edgeFile) throws IOException {
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(nodeFile)))) {
+            writer.println(graph.amountNodes);
+            for (int node = 0; node < graph.amountNodes; node++) {
+                writer.println(node + " " + graph.latitude[node] + " " + graph.longitude[node]);
+            }
+        }
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(edgeFile)))) {
+            writer.println(graph.amountEdges);
+            for (int node = 0; node < graph.amountNodes; node++) {
+                for (int edge = graph.edgeStart[node]; edge < graph.edgeStart[node + 1]; edge++) {
+                    writer.println(node + " " + graph.edgeTarget[edge] + " " + graph.travelTime[edge] + " "
+                            + graph.length[edge] + " " + graph.speedLimit[edge]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Main method - Runs the benchmarks.
+     *
+     * @param args The fixture, "grid width height" (a 300 by 300 grid by default) or "map nodeFile edgeFile",
+     *             followed by the benchmarks to run: load, preprocess and query (all by default).
+     * @throws Exception if a file could not be read or written.
+     */
+    public static void main(String[] args) throws Exception {
+        String nodeFile;
+        String edgeFile;
+        int firstBenchmark = 0;
+        if (args.length >= 3 && args[0].equals("map")) {
+            nodeFile = args[1];
+            edgeFile = args[2];
+            firstBenchmark = 3;
+        } else {
+            int width = 300;
+            int height = 300;
+            if (args.length >= 3 && args[0].equals("grid")) {
+                width = Integer.parseInt(args[1]);
+                height = Integer.parseInt(args[2]);
+                firstBenchmark = 3;
+            }
+            File directory = Files.createTempDirectory("benchmark").toFile();
+            File gridNodeFile = new File(directory, "noder.txt");
+            File gridEdgeFile = new File(directory, "kanter.txt");
+            directory.deleteOnExit();
+            gridNodeFile.deleteOnExit();
+            gridEdgeFile.deleteOnExit();
+            writeTextFiles(SyntheticGraphs.grid(width, height, 1), gridNodeFile.getPath(), gridEdgeFile.getPath());
+            nodeFile = gridNodeFile.getPath();
+            edgeFile = gridEdgeFile.getPath();
+        }
+        String benchmarks = firstBenchmark < args.length
+                ? String.join(" ", Arrays.copyOfRange(args, firstBenchmark, args.length)) : "load preprocess query";
+
+        RoutingBenchmark benchmark = new RoutingBenchmark(nodeFile, edgeFile);
+        System.out.println("Nodes: " + benchmark.preprocessor.amountNodes + ", edges: " + benchmark.preprocessor.graph.amountEdges);
+        if (benchmarks.contains("load")) {
+            benchmark.benchmarkLoading();
+        }
+        if (benchmarks.contains("preprocess")) {
+            benchmark.benchmarkPreprocessing();
+        }
+        if (benchmarks.contains("query")) {
+            benchmark.benchmarkQueries();
+        }
+        System.out.println("Sink: " + benchmark.sink);
+    }
+}
@@ -0,0 +1,296 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Service that answers many route queries at the same time on one shared graph.
+ * The queries run on a fixed pool of worker threads, where each worker has its own
+ * search context, so the graph is only read and never copied.
+ * At most queueCapacity queries wait for a worker, and submitting more blocks the caller
+ * until there is room, so a large batch can not fill up the memory.
+ * With a RouteCache, a query that has been answered before is answered from the cache.
+ */
+class RoutingService implements AutoCloseable {
+
+    /**
+     * The algorithms a query can be answered with.
+     */
+    enum Algorithm {
+        DIJKSTRA,
+        ALT,
+        BIDIRECTIONAL_DIJKSTRA,
+        BIDIRECTIONAL_ALT,
+        A_STAR
+    }
+
+    // The algorithm instance holding the graph and the landmarks.
+    private final DijkstrasAlgorithm router;
+    // The worker threads.
+    private final ExecutorService executor;
+    // Permits for queries that are running or waiting, used to block when the queue is full.
+    private final Semaphore capacity;
+    // The search context of each worker thread.
+    private final ThreadLocal<SearchContext> searchContexts;
+    // The search context for the backward half of bidirectional queries on each worker thread.
+    private final ThreadLocal<SearchContext> backwardSearchContexts;
+    // The routes that have been found, null if routes are not cached.
+    private final RouteCache routeCache;
+    // Execution times of the finished queries in nanoseconds, in buckets of a fixed size.
+    private final Histogram latencies = new Histogram();
+    // Time the first query was submitted, in nanoseconds.
+    private final AtomicLong firstSubmitTime = new AtomicLong();
+    // Time the last query finished, in nanoseconds.
+    private final AtomicLong lastFinishTime = new AtomicLong();
+
+    /**
+     * Class constructor.
+     *
+     * @param router The algorithm instance holding the graph, an AltAlgorithm if ALT queries are used,
+     *               and with the inverted graph read if bidirectional queries are used.
+     * @param threads Amount of worker threads.
+     * @param queueCapacity Amount of queries that can wait for a worker.
+     */
+    RoutingService(DijkstrasAlgorithm router, int threads, int queueCapacity) {
+        this(router, threads, queueCapacity, null);
+    }
+
+    /**
+     * Class constructor for a service that caches the routes.
+     *
+     * @param router The algorithm instance holding the graph, an AltAlgorithm if ALT queries are used,
+     *               and with the inverted graph read if bidirectional queries are used.
+     * @param threads Amount of worker threads.
+     * @param queueCapacity Amount of queries that can wait for a worker.
+     * @param routeCache The cache of the routes, null to not cache them.
+     */
+    RoutingService(DijkstrasAlgorithm router, int threads, int queueCapacity, RouteCache routeCache) {
+        this.router = router;
+        this.routeCache = routeCache;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.capacity = new Semaphore(threads + queueCapacity);
+        this.searchContexts = ThreadLocal.withInitial(() -> router.newSearchContext(router.graph.amountNodes));
+        this.backwardSearchContexts = ThreadLocal.withInitial(() -> router.newSearchContext(router.graph.amountNodes));
+    }
+
+    /**
+     * Submits a query, and blocks while the queue is full.
+     *
+     * @param startNodeNumber The starting node's node number.
+     * @param endNodeNumber The ending node's node number.
+     * @param algorithm The algorithm to answer the query with.
+     * @return The shortest travel time in centiseconds when it is done, -1 if there is no path.
+     * @throws InterruptedException if the thread was interrupted while waiting for room in the queue.
+     */
+    public Future<Integer> submit(int startNodeNumber, int endNodeNumber, Algorithm algorithm)
+            throws InterruptedException {
+        return submit(startNodeNumber, endNodeNumber, algorithm, CostMetric.TRAVEL_TIME);
+    }
+
+    /**
+     * Submits a query that minimizes a cost metric, and blocks while the queue is full.
+     *
+     * @param startNodeNumber The starting node's node number.
+     * @param endNodeNumber The ending node's node number.
+     * @param algorithm The algorithm to answer the query with.
+     * @param metric The cost metric to minimize, ALT queries need landmarks for it.
+     * @return The lowest cost when it is done, -1 if there is no path.
+     * @throws InterruptedException if the thread was interrupted while waiting for room in the queue.
+     */
+    public Future<Integer> submit(int startNodeNumber, int endNodeNumber, Algorithm algorithm, CostMetric metric)
+            throws InterruptedException {
+        if ((algorithm == Algorithm.ALT || algorithm == Algorithm.BIDIRECTIONAL_ALT)
+                && (!(router instanceof AltAlgorithm) || router.landmarks(metric) == null)) {
+            throw new IllegalStateException("ALT queries need an AltAlgorithm with landmarks for " + metric);
+        }
+        if ((algorithm == Algorithm.BIDIRECTIONAL_DIJKSTRA || algorithm == Algorithm.BIDIRECTIONAL_ALT)
+                && router.invertedGraph == null) {
+            throw new IllegalStateException("Bidirectional queries need the inverted graph");
+        }
+        capacity.acquire();
+        firstSubmitTime.compareAndSet(0, System.nanoTime());
+        try {
+            return executor.submit(() -> {
+                try {
+                    return route(startNodeNumber, endNodeNumber, algorithm, metric);
+                } finally {
+                    capacity.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            capacity.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Answers a batch of queries, and waits for all of them to finish.
+     *
+     * @param startNodes The starting node of each query.
+     * @param endNodes The ending node of each query.
+     * @param algorithm The algorithm to answer the queries with.
+     * @return The shortest travel time of each query, -1 where there is no path.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     * @throws ExecutionException if a query failed.
+     */
+    public int[] routeAll(int[] startNodes, int[] endNodes, Algorithm algorithm)
+            throws InterruptedException, ExecutionException {
+        return routeAll(startNodes, endNodes, algorithm, CostMetric.TRAVEL_TIME);
+    }
+
+    /**
+     * Answers a batch of queries that minimize a cost metric, and waits for all of them to finish.
+     *
+     * @param startNodes The starting node of each query.
+     * @param endNodes The ending node of each query.
+     * @param algorithm The algorithm to answer the queries with.
+     * @param metric The cost metric to minimize.
+     * @return The lowest cost of each query, -1 where there is no path.
+     * @throws InterruptedException if the thread was interrupted while waiting.
+     * @throws ExecutionException if a query failed.
+     */
+    public int[] routeAll(int[] startNodes, int[] endNodes, Algorithm algorithm, CostMetric metric)
+            throws InterruptedException, ExecutionException {
+        List<Future<Integer>> futures = new ArrayList<>(startNodes.length);
+        for (int i = 0; i < startNodes.length; i++) {
+            futures.add(submit(startNodes[i], endNodes[i], algorithm, metric));
+        }
+        int[] travelTimes = new int[startNodes.length];
+        for (int i = 0; i < travelTimes.length; i++) {
+            travelTimes[i] = futures.get(i).get();
+        }
+        return travelTimes;
+    }
+
+    /**
+     * Answers one query on the current worker thread.
+     *
+     * @param startNodeNumber The starting node's node number.
+     * @param endNodeNumber The ending node's node number.
+     * @param algorithm The algorithm to answer the query with.
+     * @param metric The cost metric to minimize.
+     * @return The lowest cost, the travel time in centiseconds for CostMetric.TRAVEL_TIME. -1 if there is no path.
+     */
+    private int route(int startNodeNumber, int endNodeNumber, Algorithm algorithm, CostMetric metric) {
+        SearchContext context = searchContexts.get();
+        long startTime = System.nanoTime();
+        // The whole query uses one version of the graph, so the cached route is for the graph
+        // that was searched. Every algorithm finds the same cost, so they share the cached routes.
+        GraphVersion version = router.currentVersion(metric);
+        if (routeCache != null) {
+            RouteCache.Route route = routeCache.get(version.number, startNodeNumber, endNodeNumber, metric);
+            if (route != null) {
+                recordFinished(startTime);
+                return route.travelTime;
+            }
+        }
+        int travelTime;
+        switch (algorithm) {
+            case ALT:
+                travelTime = ((AltAlgorithm) router).ALT(startNodeNumber, endNodeNumber, version, metric, context);
+                break;
+            case BIDIRECTIONAL_DIJKSTRA:
+                travelTime = router.bidirectionalDijkstra(startNodeNumber, endNodeNumber, version, metric, context,
+                        backwardSearchContexts.get());
+                break;
+            case A_STAR:
+                travelTime = router.aStar(startNodeNumber, endNodeNumber, version, metric, context);
+                break;
+            case BIDIRECTIONAL_ALT:
+                travelTime = ((AltAlgorithm) router).bidirectionalALT(startNodeNumber, endNodeNumber, version, metric, context,
+                        backwardSearchContexts.get());
+                break;
+            default:
+                travelTime = router.dijkstra(startNodeNumber, endNodeNumber, version.graph, metric, context);
+        }
+        if (routeCache != null) {
+            // The path is read into the buffer of the context, so only the encoded path is allocated.
+            int pathLength = router.fillPath(endNodeNumber, context);
+            routeCache.put(version.number, startNodeNumber, endNodeNumber, metric,
+                    new RouteCache.Route(travelTime, PathCodec.encode(context.path, pathLength)));
+        }
+        long latency = recordFinished(startTime);
+        if (algorithm == Algorithm.BIDIRECTIONAL_DIJKSTRA || algorithm == Algorithm.BIDIRECTIONAL_ALT) {
+            SearchMetrics.record(algorithm.name(), context, backwardSearchContexts.get(), latency);
+        } else {
+            SearchMetrics.record(algorithm.name(), context, latency);
+        }
+        return travelTime;
+    }
+
+    /**
+     * Records the latency and the finish time of a query that is done.
+     *
+     * @param startTime The time the query started, in nanoseconds.
+     * @return The latency in nanoseconds.
+     */
+    private long recordFinished(long startTime) {
+        long finishTime = System.nanoTime();
+        latencies.record(finishTime - startTime);
+        // Queries can finish in another order than they record, so only a later time is kept.
+        lastFinishTime.accumulateAndGet(finishTime, Math::max);
+        return finishTime - startTime;
+    }
+
+    /**
+     * Makes a summary of the throughput and the latency percentiles of the finished queries.
+     *
+     * @return The summary.
+     */
+    public String statistics() {
+        long amountFinished = latencies.count();
+        if (amountFinished == 0) {
+            return "No finished queries";
+        }
+        // Measured until the last query finished, so the throughput does not drop while the service is idle.
+        double seconds = (lastFinishTime.get() - firstSubmitTime.get()) / 1e9;
+        String cacheStatistics = routeCache == null ? "" : "\n" + routeCache.statistics();
+        return "Queries: " + amountFinished
+                + ", throughput: " + String.format("%.1f", amountFinished / seconds) + " queries/s"
+                + ", latency in ms p50: " + latencies.percentile(50) / 1e6
+                + " p90: " + latencies.percentile(90) / 1e6
+                + " p99: " + latencies.percentile(99) / 1e6
+                + " max: " + latencies.max() / 1e6
+                + cacheStatistics;
+    }
+
+    /**
+     * Stops the worker threads after the submitted queries are done.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Main method - Runs a batch of random queries on all cores.
+     *
+     * @param args String[].
+     */
+    public static void main(String[] args) throws Exception {
+        DijkstrasAlgorithm dijkstras = new DijkstrasAlgorithm();
+        dijkstras.readNodeFile("noder.txt");
+        dijkstras.readEdgeFile("kanter.txt");
+
+        int amountQueries = 1000;
+        int[] startNodes = new int[amountQueries];
+        int[] endNodes = new int[amountQueries];
+        Random random = new Random();
+        for (int i = 0; i < amountQueries; i++) {
+            startNodes[i] = random.nextInt(dijkstras.amountNodes);
+            endNodes[i] = random.nextInt(dijkstras.amountNodes);
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        // The batch is answered twice, the second time from the cache.
+        try (RoutingService service = new RoutingService(dijkstras, threads, 4 * threads, new RouteCache(10000))) {
+            service.routeAll(startNodes, endNodes, Algorithm.DIJKSTRA);
+            service.routeAll(startNodes, endNodes, Algorithm.DIJKSTRA);
+            System.out.println(service.statistics());
+            if (SearchMetrics.ENABLED) {
+                System.out.print(SearchMetrics.summary());
+            }
+        }
+    }
+}
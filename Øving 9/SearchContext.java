@@ -0,0 +1,176 @@
+import java.util.Arrays;
+
+/**
+ * Class that holds the state of one search, so the graph itself is never changed by a search.
+ * A context can be reused for any amount of searches on graphs with the same amount of nodes,
+ * but only by one search at a time.
+ * <p>
+ * Instead of setting every node back to "infinity" before a search, each search gets a new
+ * search number, and a node's travel time only counts if it was set in the current search.
+ * Starting a new search is then O(1), and a search only touches the nodes it reaches.
+ */
+class SearchContext {
+    // Amount of nodes in the graphs this context can search through.
+    final int amountNodes;
+    // The priority queue used to select the next node.
+    final NodePriorityQueue priorityQueue;
+    // Travel time from the starting node, only valid if the node was reached in the current search.
+    private final int[] travelTimeFromStartNode;
+    // Previous node in the shortest path, only valid if the node was reached in the current search.
+    private final int[] previousNode;
+    // The edge from the previous node in the graph that was searched, -1 if the search did not
+    // record it. Only valid if the node was reached in the current search.
+    private final int[] previousEdge;
+    // Estimated travel time to the goal, only valid if the node was reached in the current search.
+    private int[] estimate;
+    // The search number of the last search that reached each node.
+    private final int[] reachedInSearch;
+    // The search number of the current search.
+    private int currentSearch = 0;
+    // Counter for the number of nodes picked from the priority queue in the current search.
+    int nodesPicked = 0;
+    // Counters for SearchMetrics, only counted when it is enabled: edges relaxed, nodes added to
+    // the priority queue or given a lower priority, the nodes of those that were already reached
+    // and got a lower priority, and the largest size of the queue.
+    long edgesRelaxed = 0;
+    long queueUpdates = 0;
+    long decreaseKeys = 0;
+    int peakQueueSize = 0;
+    // Landmark estimates for ALT, made the first time ALT uses this context.
+    LandmarkEstimate landmarkEstimate;
+    // The node numbers of the last path read with DijkstrasAlgorithm.fillPath, reused for every path.
+    int[] path = new int[256];
+
+    /**
+     * Class constructor.
+     *
+     * @param amountNodes Amount of nodes in the graphs this context can search through.
+     * @param queueType The kind of priority queue to use.
+     */
+    SearchContext(int amountNodes, QueueType queueType) {
+        this.amountNodes = amountNodes;
+        this.priorityQueue = queueType.create(amountNodes);
+        travelTimeFromStartNode = new int[amountNodes];
+        previousNode = new int[amountNodes];
+        previousEdge = new int[amountNodes];
+        reachedInSearch = new int[amountNodes];
+    }
+
+    /**
+     * Starts a new search, where no nodes have been reached.
+     */
+    void reset() {
+        currentSearch++;
+        // The search numbers would run out after about two billion searches, so start over.
+        if (currentSearch == Integer.MAX_VALUE) {
+            Arrays.fill(reachedInSearch, 0);
+            currentSearch = 1;
+        }
+        priorityQueue.clear();
+        nodesPicked = 0;
+        edgesRelaxed = 0;
+        queueUpdates = 0;
+        decreaseKeys = 0;
+        peakQueueSize = 0;
+    }
+
+    /**
+     * Counts a node added to the priority queue or given a lower priority, for SearchMetrics.
+     */
+    void countQueueUpdate() {
+        queueUpdates++;
+        peakQueueSize = Math.max(peakQueueSize, priorityQueue.size());
+    }
+
+    /**
+     * Returns the travel time from the starting node.
+     *
+     * @param node The node number.
+     * @return The travel time, or Integer.MAX_VALUE if the node has not been reached.
+     */
+    int travelTime(int node) {
+        return reachedInSearch[node] == currentSearch ? travelTimeFromStartNode[node] : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the previous node in the shortest path to a node.
+     *
+     * @param node The node number.
+     * @return The previous node, or -1 if there is none.
+     */
+    int previousNode(int node) {
+        return reachedInSearch[node] == currentSearch ? previousNode[node] : -1;
+    }
+
+    /**
+     * Sets the travel time and previous node of a node in the current search.
+     *
+     * @param node The node number.
+     * @param travelTime The travel time from the starting node.
+     * @param previous The previous node in the path, -1 for the starting node.
+     */
+    void update(int node, int travelTime, int previous) {
+        update(node, travelTime, previous, -1);
+    }
+
+    /**
+     * Sets the travel time, previous node and the edge from the previous node of a node in the
+     * current search, so the edges of the path do not have to be found again afterwards.
+     *
+     * @param node The node number.
+     * @param travelTime The travel time from the starting node.
+     * @param previous The previous node in the path, -1 for the starting node.
+     * @param edge The index of the edge from the previous node in the graph, -1 if it is not known.
+     */
+    void update(int node, int travelTime, int previous, int edge) {
+        reachedInSearch[node] = currentSearch;
+        travelTimeFromStartNode[node] = travelTime;
+        previousNode[node] = previous;
+        previousEdge[node] = edge;
+    }
+
+    /**
+     * Returns the edge from the previous node in the shortest path to a node.
+     *
+     * @param node The node number.
+     * @return The index of the edge in the graph that was searched, or -1 if it is not known.
+     */
+    int previousEdge(int node) {
+        return reachedInSearch[node] == currentSearch ? previousEdge[node] : -1;
+    }
+
+    /**
+     * Returns the estimated travel time to the goal stored for a node in the current search.
+     *
+     * @param node The node number.
+     * @return The estimate, or Integer.MIN_VALUE if no estimate has been stored for the node.
+     */
+    int estimate(int node) {
+        return estimate != null && reachedInSearch[node] == currentSearch ? estimate[node] : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Stores the estimated travel time to the goal for a node that has been reached in the
+     * current search, so it does not have to be computed again if the node is reached again.
+     *
+     * @param node The node number.
+     * @param nodeEstimate The estimate.
+     */
+    void setEstimate(int node, int nodeEstimate) {
+        if (estimate == null) {
+            estimate = new int[amountNodes];
+        }
+        estimate[node] = nodeEstimate;
+    }
+
+    /**
+     * Copies the travel time of every node into an array.
+     *
+     * @param destination Array with room for every node.
+     */
+    void copyTravelTimes(int[] destination) {
+        for (int node = 0; node < amountNodes; node++) {
+            destination[node] = travelTime(node);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Statistics of the searches, for tuning: for each kind of search, histograms of the latency,
+ * the amount of nodes picked from the queue, the amount of edges relaxed, the amount of times a
+ * node was added to the queue or got a lower priority, how many of those were a lower priority
+ * for a node that was already reached, and the largest size of the queue.
+ * <p>
+ * Turned on with the system property searchMetrics, for example java -DsearchMetrics=true.
+ * ENABLED is a constant, so when it is false the JIT compiler removes the code that counts,
+ * and the searches run exactly as fast as without it.
+ */
+class SearchMetrics {
+
+    /**
+     * The counters that can be read with counter, summed over every search of a kind.
+     */
+    enum Counter {
+        // The nodes picked from the queue.
+        NODES_PICKED,
+        // The edges relaxed.
+        EDGES_RELAXED,
+        // The times a node was added to the queue or got a lower priority.
+        QUEUE_UPDATES,
+        // The times a node that was already reached got a lower priority.
+        DECREASE_KEYS,
+        // The searches recorded.
+        SEARCHES
+    }
+
+    // If the searches are counted, read once when the class is loaded.
+    static final boolean ENABLED = Boolean.getBoolean("searchMetrics");
+
+    // The statistics of each kind of search, in the order they were first recorded.
+    private static final Map<String, QueryStatistics> queries = new LinkedHashMap<>();
+
+    /**
+     * Records a finished search.
+     *
+     * @param query The kind of search, for example "Dijkstra".
+     * @param context The context of the search.
+     * @param latency The execution time in nanoseconds.
+     */
+    static void record(String query, SearchContext context, long latency) {
+        if (!ENABLED) {
+            return;
+        }
+        statistics(query).record(context.nodesPicked, context.edgesRelaxed, context.queueUpdates,
+                context.decreaseKeys, context.peakQueueSize, latency);
+    }
+
+    /**
+     * Records a finished bidirectional search, with the counts of both halves added together.
+     * The peak queue size is the larger of the peaks of the two queues, like the one queue of
+     * the other searches.
+     *
+     * @param query The kind of search, for example "Bidirectional Dijkstra".
+     * @param forward The context of the forward search.
+     * @param backward The context of the backward search.
+     * @param latency The execution time in nanoseconds.
+     */
+    static void record(String query, SearchContext forward, SearchContext backward, long latency) {
+        if (!ENABLED) {
+            return;
+        }
+        statistics(query).record(forward.nodesPicked + backward.nodesPicked,
+                forward.edgesRelaxed + backward.edgesRelaxed, forward.queueUpdates + backward.queueUpdates,
+                forward.decreaseKeys + backward.decreaseKeys, Math.max(forward.peakQueueSize, backward.peakQueueSize),
+                latency);
+    }
+
+    /**
+     * Returns the statistics of a kind of search, and makes them the first time.
+     *
+     * @param query The kind of search.
+     * @return The statistics.
+     */
+    private static synchronized QueryStatistics statistics(String query) {
+        return queries.computeIfAbsent(query, name -> new QueryStatistics());
+    }
+
+    /**
+     * Makes a summary of every kind of search that has been recorded.
+     *
+     * @return The summary, one line per kind of search.
+     */
+    static synchronized String summary() {
+        if (!ENABLED) {
+            return "Search metrics are off, run with -DsearchMetrics=true to turn them on\n";
+        }
+        StringBuilder summary = new StringBuilder();
+        for (Map.Entry<String, QueryStatistics> entry : queries.entrySet()) {
+            QueryStatistics statistics = entry.getValue();
+            summary.append(entry.getKey()).append(": ").append(statistics.latency.count()).append(" searches")
+                    .append(", latency in ms p50: ").append(statistics.latency.percentile(50) / 1e6)
+                    .append(" p99: ").append(statistics.latency.percentile(99) / 1e6)
+                    .append(" max: ").append(statistics.latency.max() / 1e6)
+                    .append(describe(", nodes picked", statistics.nodesPicked))
+                    .append(describe(", edges relaxed", statistics.edgesRelaxed))
+                    .append(describe(", queue updates", statistics.queueUpdates))
+                    .append(describe(", decrease-keys", statistics.decreaseKeys))
+                    .append(describe(", peak queue size", statistics.peakQueueSize))
+                    .append('\n');
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Describes a histogram with its average, median and highest value.
+     *
+     * @param name The name of the histogram.
+     * @param histogram The histogram.
+     * @return The description.
+     */
+    private static String describe(String name, Histogram histogram) {
+        return name + " mean: " + Math.round(histogram.mean()) + " p50: " + histogram.percentile(50)
+                + " max: " + histogram.max();
+    }
+
+    /**
+     * Returns the total of a counter over every search of a kind.
+     *
+     * @param query The kind of search.
+     * @param counter The counter.
+     * @return The total, 0 if the kind of search has not been recorded.
+     */
+    static synchronized long counter(String query, Counter counter) {
+        QueryStatistics statistics = queries.get(query);
+        if (statistics == null) {
+            return 0;
+        }
+        switch (counter) {
+            case NODES_PICKED:
+                return statistics.nodesPicked.sum();
+            case EDGES_RELAXED:
+                return statistics.edgesRelaxed.sum();
+            case QUEUE_UPDATES:
+                return statistics.queueUpdates.sum();
+            case DECREASE_KEYS:
+                return statistics.decreaseKeys.sum();
+            default:
+                return statistics.latency.count();
+        }
+    }
+
+    /**
+     * Removes everything that has been recorded.
+     */
+    static synchronized void reset() {
+        queries.clear();
+    }
+
+    /**
+     * The histograms of one kind of search.
+     */
+    private static class QueryStatistics {
+        final Histogram latency = new Histogram();
+        final Histogram nodesPicked = new Histogram();
+        final Histogram edgesRelaxed = new Histogram();
+        final Histogram queueUpdates = new Histogram();
+        final Histogram decreaseKeys = new Histogram();
+        final Histogram peakQueueSize = new Histogram();
+
+        /**
+         * Records one search.
+         *
+         * @param picked The amount of nodes picked from the queue.
+         * @param relaxed The amount of edges relaxed.
+         * @param updates The amount of times a node was added to the queue or got a lower priority.
+         * @param decreases The amount of times a node that was already reached got a lower priority.
+         * @param peakSize The largest size of the queue.
+         * @param latencyNanos The execution time in nanoseconds.
+         */
+        void record(long picked, long relaxed, long updates, long decreases, long peakSize, long latencyNanos) {
+            latency.record(latencyNanos);
+            nodesPicked.record(picked);
+            edgesRelaxed.record(relaxed);
+            queueUpdates.record(updates);
+            decreaseKeys.record(decreases);
+            peakQueueSize.record(peakSize);
+        }
+    }
+}
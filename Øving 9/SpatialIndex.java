@@ -0,0 +1,230 @@
+import java.util.Arrays;
+
+/**
+ * Grid over the coordinates of the nodes, used to find the nodes closest to a GPS position
+ * without looking at every node.
+ * <p>
+ * The bounding box of the nodes is split into cells of the same size, with a few nodes in each
+ * cell on average. The nodes are stored cell by cell the same way as the edges of a RoadGraph,
+ * and their coordinates are copied in the same order, so the nodes of a cell lie next to each
+ * other in memory. A search looks at the cell of the position first, and then at rings of cells
+ * around it, until the ring is further away than the nodes it has found.
+ * <p>
+ * Distances are compared with the latitude and longitude difference, where the longitude
+ * difference is scaled by the cosine of the latitude of the position. Close to the position
+ * this is the same order as the real distances.
+ */
+class SpatialIndex {
+    // The average amount of nodes in a cell.
+    private static final int NODES_PER_CELL = 2;
+
+    // The south west corner of the grid.
+    private final double minLatitude;
+    private final double minLongitude;
+    // The size of a cell in degrees.
+    private final double cellHeight;
+    private final double cellWidth;
+    // Amount of cells from south to north, and from west to east.
+    private final int rows;
+    private final int columns;
+    // The nodes of cell c are from cellStart[c] to cellStart[c + 1] in cellNodes, cells are numbered row by row.
+    private final int[] cellStart;
+    private final int[] cellNodes;
+    // The coordinates of the nodes in cellNodes, in the same order.
+    private final double[] cellLatitude;
+    private final double[] cellLongitude;
+
+    /**
+     * Class constructor, builds the grid.
+     *
+     * @param latitude The latitude coordinate of each node.
+     * @param longitude The longitude coordinate of each node.
+     */
+    SpatialIndex(double[] latitude, double[] longitude) {
+        int amountNodes = latitude.length;
+        double maxLatitude = Double.NEGATIVE_INFINITY;
+        double maxLongitude = Double.NEGATIVE_INFINITY;
+        double lowestLatitude = Double.POSITIVE_INFINITY;
+        double lowestLongitude = Double.POSITIVE_INFINITY;
+        for (int node = 0; node < amountNodes; node++) {
+            lowestLatitude = Math.min(lowestLatitude, latitude[node]);
+            lowestLongitude = Math.min(lowestLongitude, longitude[node]);
+            maxLatitude = Math.max(maxLatitude, latitude[node]);
+            maxLongitude = Math.max(maxLongitude, longitude[node]);
+        }
+        if (amountNodes == 0) {
+            lowestLatitude = maxLatitude = lowestLongitude = maxLongitude = 0;
+        }
+        minLatitude = lowestLatitude;
+        minLongitude = lowestLongitude;
+
+        // Square cells, measured in kilometres in the middle of the map.
+        double latitudeSpan = Math.max(maxLatitude - minLatitude, 1e-9);
+        double longitudeSpan = Math.max(maxLongitude - minLongitude, 1e-9);
+        double middleScale = Math.cos(Math.toRadians((minLatitude + maxLatitude) / 2));
+        double amountCells = Math.max(1, amountNodes / NODES_PER_CELL);
+        double side = Math.sqrt(latitudeSpan * longitudeSpan * middleScale / amountCells);
+        rows = (int) Math.max(1, Math.min(1 << 15, Math.ceil(latitudeSpan / side)));
+        columns = (int) Math.max(1, Math.min(1 << 15, Math.ceil(longitudeSpan * middleScale / side)));
+        // A bit larger than the span, so the nodes on the north and east edge are inside the grid.
+        cellHeight = latitudeSpan / rows * (1 + 1e-9);
+        cellWidth = longitudeSpan / columns * (1 + 1e-9);
+
+        // Counting sort of the nodes on their cell.
+        int[] cellOfNode = new int[amountNodes];
+        cellStart = new int[rows * columns + 1];
+        for (int node = 0; node < amountNodes; node++) {
+            cellOfNode[node] = cell(row(latitude[node]), column(longitude[node]));
+            cellStart[cellOfNode[node] + 1]++;
+        }
+        for (int cell = 0; cell < rows * columns; cell++) {
+            cellStart[cell + 1] += cellStart[cell];
+        }
+        cellNodes = new int[amountNodes];
+        cellLatitude = new double[amountNodes];
+        cellLongitude = new double[amountNodes];
+        int[] nextPosition = Arrays.copyOf(cellStart, rows * columns);
+        for (int node = 0; node < amountNodes; node++) {
+            int position = nextPosition[cellOfNode[node]]++;
+            cellNodes[position] = node;
+            cellLatitude[position] = latitude[node];
+            cellLongitude[position] = longitude[node];
+        }
+    }
+
+    /**
+     * Returns the row of a latitude, the first or last row if it is outside the grid.
+     *
+     * @param latitude The latitude.
+     * @return The row.
+     */
+    private int row(double latitude) {
+        return (int) Math.max(0, Math.min(rows - 1, Math.floor((latitude - minLatitude) / cellHeight)));
+    }
+
+    /**
+     * Returns the column of a longitude, the first or last column if it is outside the grid.
+     *
+     * @param longitude The longitude.
+     * @return The column.
+     */
+    private int column(double longitude) {
+        return (int) Math.max(0, Math.min(columns - 1, Math.floor((longitude - minLongitude) / cellWidth)));
+    }
+
+    /**
+     * Returns the number of the cell in a row and column.
+     *
+     * @param row The row.
+     * @param column The column.
+     * @return The cell number.
+     */
+    private int cell(int row, int column) {
+        return row * columns + column;
+    }
+
+    /**
+     * Finds the node closest to a position.
+     *
+     * @param latitude The latitude of the position.
+     * @param longitude The longitude of the position.
+     * @return The node number, -1 if there are no nodes.
+     */
+    int nearest(double latitude, double longitude) {
+        int[] nodes = nearest(latitude, longitude, 1);
+        return nodes.length == 0 ? -1 : nodes[0];
+    }
+
+    /**
+     * Finds the k nodes closest to a position.
+     *
+     * @param latitude The latitude of the position.
+     * @param longitude The longitude of the position.
+     * @param k The amount of nodes to find.
+     * @return The node numbers, closest first. Fewer than k if there are fewer nodes.
+     */
+    int[] nearest(double latitude, double longitude, int k) {
+        k = Math.min(k, cellNodes.length);
+        // The closest nodes found so far and their squared distances, sorted closest first.
+        int[] found = new int[k];
+        double[] foundDistance = new double[k];
+        int amountFound = 0;
+        if (k == 0) {
+            return found;
+        }
+
+        double longitudeScale = Math.cos(Math.toRadians(latitude));
+        int centerRow = row(latitude);
+        int centerColumn = column(longitude);
+        // The position moved into the grid. Every node is at least as far from the position as
+        // from this point, so the distance to a ring can be measured from it.
+        double insideLatitude = Math.max(minLatitude, Math.min(minLatitude + rows * cellHeight, latitude));
+        double insideLongitude = Math.max(minLongitude, Math.min(minLongitude + columns * cellWidth, longitude));
+        double northSouthMargin = Math.min(insideLatitude - (minLatitude + centerRow * cellHeight),
+                minLatitude + (centerRow + 1) * cellHeight - insideLatitude);
+        double eastWestMargin = Math.min(insideLongitude - (minLongitude + centerColumn * cellWidth),
+                minLongitude + (centerColumn + 1) * cellWidth - insideLongitude) * longitudeScale;
+        int lastRing = Math.max(rows, columns);
+
+        for (int ring = 0; ring <= lastRing; ring++) {
+            if (amountFound == k && ring > 0) {
+                // Every node in this ring or further out is at least this far away.
+                double ringDistance = Math.min(northSouthMargin + (ring - 1) * cellHeight,
+                        eastWestMargin + (ring - 1) * cellWidth * longitudeScale);
+                if (ringDistance * ringDistance >= foundDistance[k - 1]) {
+                    break;
+                }
+            }
+            int firstRow = centerRow - ring;
+            int lastRow = centerRow + ring;
+            for (int row = Math.max(0, firstRow); row <= Math.min(rows - 1, lastRow); row++) {
+                // Only the first and last row of the ring are whole, the other rows only have two cells.
+                boolean wholeRow = row == firstRow || row == lastRow;
+                int step = wholeRow ? 1 : 2 * ring;
+                for (int column = centerColumn - ring; column <= centerColumn + ring; column += Math.max(step, 1)) {
+                    if (column < 0 || column >= columns) {
+                        continue;
+                    }
+                    int cell = cell(row, column);
+                    for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                        double latitudeDifference = cellLatitude[i] - latitude;
+                        double longitudeDifference = (cellLongitude[i] - longitude) * longitudeScale;
+                        double distance = latitudeDifference * latitudeDifference
+                                + longitudeDifference * longitudeDifference;
+                        if (amountFound == k && distance >= foundDistance[k - 1]) {
+                            continue;
+                        }
+                        // Insertion into the sorted list of the closest nodes.
+                        int position = amountFound < k ? amountFound++ : k - 1;
+                        while (position > 0 && foundDistance[position - 1] > distance) {
+                            found[position] = found[position - 1];
+                            foundDistance[position] = foundDistance[position - 1];
+                            position--;
+                        }
+                        found[position] = cellNodes[i];
+                        foundDistance[position] = distance;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(found, amountFound);
+    }
+
+    /**
+     * Returns the great circle distance between two positions.
+     *
+     * @param latitude1 The latitude of the first position.
+     * @param longitude1 The longitude of the first position.
+     * @param latitude2 The latitude of the second position.
+     * @param longitude2 The longitude of the second position.
+     * @return The distance in meters.
+     */
+    static double distance(double latitude1, double longitude1, double latitude2, double longitude2) {
+        double latitudeDifference = Math.toRadians(latitude2 - latitude1);
+        double longitudeDifference = Math.toRadians(longitude2 - longitude1);
+        double a = Math.sin(latitudeDifference / 2) * Math.sin(latitudeDifference / 2)
+                + Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2))
+                * Math.sin(longitudeDifference / 2) * Math.sin(longitudeDifference / 2);
+        return 2 * 6371000 * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
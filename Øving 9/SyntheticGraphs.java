@@ -0,0 +1,64 @@
+import java.util.Random;
+
+/**
+ * Class that makes road-like graphs for testing and benchmarking, so the searches can be
+ * measured without the map files.
+ */
+class SyntheticGraphs {
+
+    /**
+     * Makes a grid of nodes where each node has roads to its neighbours to the north, south,
+     * east and west. Every road goes both ways, with a random length and speed limit, and
+     * about one in twenty roads is missing.
+     *
+     * @param width Amount of nodes from west to east.
+     * @param height Amount of nodes from south to north.
+     * @param seed Seed for the random lengths and speed limits.
+     * @return The graph.
+     */
+    static RoadGraph grid(int width, int height, long seed) {
+        Random random = new Random(seed);
+        int amountNodes = width * height;
+        double[] latitude = new double[amountNodes];
+        double[] longitude = new double[amountNodes];
+        for (int node = 0; node < amountNodes; node++) {
+            // Roughly one kilometer between neighbours in southern Norway.
+            latitude[node] = 58.0 + (node / width) * 0.009;
+            longitude[node] = 8.0 + (node % width) * 0.017;
+        }
+
+        int maxEdges = 4 * amountNodes;
+        int[] fromNode = new int[maxEdges];
+        int[] toNode = new int[maxEdges];
+        int[] travelTime = new int[maxEdges];
+        int[] length = new int[maxEdges];
+        int[] speedLimit = new int[maxEdges];
+        int[] speedLimits = {30, 50, 60, 80, 90, 110};
+        int amountEdges = 0;
+        for (int node = 0; node < amountNodes; node++) {
+            int x = node % width;
+            int y = node / width;
+            // Only look east and north, and add the road in both directions.
+            int[] neighbours = {x + 1 < width ? node + 1 : -1, y + 1 < height ? node + width : -1};
+            for (int neighbour : neighbours) {
+                if (neighbour == -1 || random.nextInt(20) == 0) {
+                    continue;
+                }
+                int roadLength = 1000 + random.nextInt(600);
+                int roadSpeedLimit = speedLimits[random.nextInt(speedLimits.length)];
+                // Travel time in centi-seconds when driving at the speed limit.
+                int roadTravelTime = roadLength * 360 / roadSpeedLimit;
+                for (int direction = 0; direction < 2; direction++) {
+                    fromNode[amountEdges] = direction == 0 ? node : neighbour;
+                    toNode[amountEdges] = direction == 0 ? neighbour : node;
+                    travelTime[amountEdges] = roadTravelTime;
+                    length[amountEdges] = roadLength;
+                    speedLimit[amountEdges] = roadSpeedLimit;
+                    amountEdges++;
+                }
+            }
+        }
+        return RoadGraph.fromEdgeList(latitude, longitude, amountEdges, fromNode, toNode,
+                travelTime, length, speedLimit);
+    }
+}
@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+/**
+ * Computes the travel time from every origin to every destination in one call.
+ * <p>
+ * Without a contracted graph, one Dijkstra search runs from each origin and stops when it has
+ * picked every destination, so each origin costs one search instead of one per destination.
+ * <p>
+ * With a contracted graph, the bucket method is used: an upward search runs backward from each
+ * destination, and every node it reaches gets a bucket entry with the destination and the
+ * travel time to it. An upward search then runs forward from each origin, and the travel time to
+ * a destination is the lowest sum of the travel time to a node and the bucket entry at the node.
+ * <p>
+ * The searches run on a fixed pool of worker threads, where each worker has its own search context.
+ */
+class TravelTimeMatrix implements AutoCloseable {
+    // The algorithm instance holding the graph, or the contracted graph.
+    private final DijkstrasAlgorithm router;
+    // The worker threads.
+    private final ExecutorService executor;
+    // The search context of each worker thread.
+    private final ThreadLocal<SearchContext> searchContexts;
+
+    /**
+     * Class constructor.
+     *
+     * @param router The algorithm instance holding the graph, a ContractionHierarchy to use the bucket method.
+     * @param threads Amount of worker threads.
+     */
+    TravelTimeMatrix(DijkstrasAlgorithm router, int threads) {
+        this.router = router;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.searchContexts = ThreadLocal.withInitial(() -> router.newSearchContext(router.amountNodes));
+    }
+
+    /**
+     * Computes the matrix with the bucket method if the router has a contracted graph,
+     * and with one search per origin if not.
+     *
+     * @param origins The node numbers of the origins.
+     * @param destinations The node numbers of the destinations.
+     * @return The travel time in centiseconds from origin i to destination j at [i][j], -1 if there is no path.
+     */
+    public int[][] compute(int[] origins, int[] destinations) {
+        // The contracted graph is read once, so an update in the middle of the matrix does not
+        // take it away, and every row is computed in the same graph.
+        ContractedGraph contractedGraph = router instanceof ContractionHierarchy
+                ? ((ContractionHierarchy) router).contracted : null;
+        if (contractedGraph != null) {
+            return buckets(origins, destinations, contractedGraph);
+        }
+        return searchPerOrigin(origins, destinations);
+    }
+
+    /**
+     * Computes the matrix with one Dijkstra search from each origin.
+     *
+     * @param origins The node numbers of the origins.
+     * @param destinations The node numbers of the destinations.
+     * @return The travel time in centiseconds from origin i to destination j at [i][j], -1 if there is no path.
+     */
+    public int[][] searchPerOrigin(int[] origins, int[] destinations) {
+        // How many times each node is a destination, so a search knows when it has found them all.
+        int[] destinationCount = new int[router.amountNodes];
+        for (int destination : destinations) {
+            destinationCount[destination]++;
+        }
+        int[][] matrix = new int[origins.length][];
+        runAll(origins.length, i -> {
+            SearchContext context = searchContexts.get();
+            search(origins[i], destinationCount, destinations.length, context);
+            int[] row = new int[destinations.length];
+            for (int j = 0; j < destinations.length; j++) {
+                int travelTime = context.travelTime(destinations[j]);
+                row[j] = travelTime == Integer.MAX_VALUE ? -1 : travelTime;
+            }
+            matrix[i] = row;
+        });
+        return matrix;
+    }
+
+    /**
+     * Dijkstra from an origin that stops when every destination has been picked from the queue.
+     *
+     * @param origin The node number of the origin.
+     * @param destinationCount How many times each node is a destination.
+     * @param amountDestinations The amount of destinations.
+     * @param context The context the state of the search is stored in.
+     */
+    private void search(int origin, int[] destinationCount, int amountDestinations, SearchContext context) {
+        RoadGraph graph = router.graph;
+        context.reset();
+        context.update(origin, 0, -1);
+        NodePriorityQueue priorityQueue = context.priorityQueue;
+        priorityQueue.addOrDecrease(origin, 0);
+        int destinationsLeft = amountDestinations;
+        while (!priorityQueue.isEmpty() && destinationsLeft > 0) {
+            int currentNode = priorityQueue.poll();
+            context.nodesPicked++;
+            destinationsLeft -= destinationCount[currentNode];
+            int currentTravelTime = context.travelTime(currentNode);
+            for (int edge = graph.edgeStart[currentNode]; edge < graph.edgeStart[currentNode + 1]; edge++) {
+                int toNode = graph.edgeTarget[edge];
+                int newTravelTime = currentTravelTime + graph.travelTime[edge];
+                if (newTravelTime < context.travelTime(toNode)) {
+                    context.update(toNode, newTravelTime, currentNode);
+                    priorityQueue.addOrDecrease(toNode, newTravelTime);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the matrix with the bucket method on the contracted graph.
+     *
+     * @param origins The node numbers of the origins.
+     * @param destinations The node numbers of the destinations.
+     * @return The travel time in centiseconds from origin i to destination j at [i][j], -1 if there is no path.
+     * @throws IllegalStateException if the graph has not been contracted since the travel times changed.
+     */
+    public int[][] buckets(int[] origins, int[] destinations) {
+        return buckets(origins, destinations, ((ContractionHierarchy) router).contractedGraph());
+    }
+
+    /**
+     * Computes the matrix with the bucket method on one contracted graph.
+     *
+     * @param origins The node numbers of the origins.
+     * @param destinations The node numbers of the destinations.
+     * @param contractedGraph The contracted graph.
+     * @return The travel time in centiseconds from origin i to destination j at [i][j], -1 if there is no path.
+     */
+    private int[][] buckets(int[] origins, int[] destinations, ContractedGraph contractedGraph) {
+        ContractionHierarchy ch = (ContractionHierarchy) router;
+        int amountNodes = contractedGraph.amountNodes();
+
+        // The nodes reached backward from each destination, and the travel time from them to it.
+        int[][] reachedNodes = new int[destinations.length][];
+        int[][] reachedTravelTimes = new int[destinations.length][];
+        runAll(destinations.length, j -> {
+            SearchContext context = searchContexts.get();
+            int[] nodes = ch.upwardSearch(contractedGraph, destinations[j], false, context);
+            int[] travelTimes = new int[nodes.length];
+            for (int i = 0; i < nodes.length; i++) {
+                travelTimes[i] = context.travelTime(nodes[i]);
+            }
+            reachedNodes[j] = nodes;
+            reachedTravelTimes[j] = travelTimes;
+        });
+
+        // The buckets are stored the same way as the edges of a RoadGraph, the entries of
+        // node n are from bucketStart[n] to bucketStart[n + 1].
+        int[] bucketStart = new int[amountNodes + 1];
+        for (int[] nodes : reachedNodes) {
+            for (int node : nodes) {
+                bucketStart[node + 1]++;
+            }
+        }
+        for (int node = 0; node < amountNodes; node++) {
+            bucketStart[node + 1] += bucketStart[node];
+        }
+        int[] bucketDestination = new int[bucketStart[amountNodes]];
+        int[] bucketTravelTime = new int[bucketDestination.length];
+        int[] nextPosition = Arrays.copyOf(bucketStart, amountNodes);
+        for (int j = 0; j < destinations.length; j++) {
+            for (int i = 0; i < reachedNodes[j].length; i++) {
+                int position = nextPosition[reachedNodes[j][i]]++;
+                bucketDestination[position] = j;
+                bucketTravelTime[position] = reachedTravelTimes[j][i];
+            }
+        }
+
+        int[][] matrix = new int[origins.length][];
+        runAll(origins.length, i -> {
+            SearchContext context = searchContexts.get();
+            int[] row = new int[destinations.length];
+            Arrays.fill(row, Integer.MAX_VALUE);
+            for (int node : ch.upwardSearch(contractedGraph, origins[i], true, context)) {
+                int travelTime = context.travelTime(node);
+                for (int entry = bucketStart[node]; entry < bucketStart[node + 1]; entry++) {
+                    int destination = bucketDestination[entry];
+                    row[destination] = Math.min(row[destination], travelTime + bucketTravelTime[entry]);
+                }
+            }
+            for (int j = 0; j < row.length; j++) {
+                if (row[j] == Integer.MAX_VALUE) {
+                    row[j] = -1;
+                }
+            }
+            matrix[i] = row;
+        });
+        return matrix;
+    }
+
+    /**
+     * Something to do for each index, on any of the worker threads.
+     */
+    private interface IndexTask {
+        void run(int index);
+    }
+
+    /**
+     * Runs a task for every index on the worker threads, and waits for all of them to finish.
+     *
+     * @param amount The amount of indexes.
+     * @param task The task.
+     */
+    private void runAll(int amount, IndexTask task) {
+        List<Future<?>> futures = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++) {
+            int index = i;
+            futures.add(executor.submit(() -> task.run(index)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Stops the worker threads.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * Main method - Computes a matrix between random nodes, with the contracted graph if it exists.
+     *
+     * @param args String[], optionally the amount of origins and destinations.
+     */
+    public static void main(String[] args) {
+        ContractionHierarchy ch = new ContractionHierarchy();
+        ch.loadGraph("noder.txt", "kanter.txt");
+        if (new java.io.File("kontrahert.bin").exists()) {
+            ch.readContractionFile("kontrahert.bin");
+        }
+
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        Random random = new Random();
+        int[] nodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = random.nextInt(ch.amountNodes);
+        }
+
+        try (TravelTimeMatrix matrix = new TravelTimeMatrix(ch, Runtime.getRuntime().availableProcessors())) {
+            long startTime = System.currentTimeMillis();
+            int[][] travelTimes = matrix.compute(nodes, nodes);
+            long executionTime = System.currentTimeMillis() - startTime;
+            System.out.println(size + "x" + size + " matrix in milliseconds: " + executionTime);
+            System.out.println("Travel time from the first to the last node in seconds: " + travelTimes[0][size - 1] / 100);
+        }
+    }
+}